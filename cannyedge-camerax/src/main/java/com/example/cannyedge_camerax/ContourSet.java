@@ -0,0 +1,158 @@
+package com.example.cannyedge_camerax;
+
+import java.util.Arrays;
+
+/**
+ * ContourSet - Pooled, primitive-backed storage for the contours of one frame
+ * All contours share flat int[] arrays of interleaved x, y coordinates; each contour is an
+ * (offset, count) window into them. The arrays only grow, so after the first few frames
+ * filling a ContourSet allocates nothing.
+ *
+ * Per contour i:
+ * - Outline points: getPoints()[getPointOffset(i) .. + 2 * getPointCount(i)]
+ * - Approximated polygon: getPolygonPoints()[getPolygonOffset(i) .. + 2 * getPolygonCount(i)]
+ * - Bounding box: getLeft(i), getTop(i), getRight(i), getBottom(i) (right / bottom exclusive)
+ * - Shape measures: getArea(i), getPerimeter(i)
+ *
+ * Contents are only valid until the next frame is processed; consumers copy what they keep.
+ */
+public final class ContourSet {
+
+    private static final int INITIAL_CONTOURS = 64;
+    private static final int INITIAL_POINTS = 4096;
+
+    // ============ Point storage (x, y interleaved) ============
+    private int[] points = new int[INITIAL_POINTS * 2];
+    private int[] polygonPoints = new int[INITIAL_POINTS * 2];
+    private int pointsUsed = 0;   // ints used in points[]
+    private int polygonUsed = 0;  // ints used in polygonPoints[]
+
+    // ============ Per-contour records ============
+    private int[] pointOffset = new int[INITIAL_CONTOURS];
+    private int[] pointCount = new int[INITIAL_CONTOURS];
+    private int[] polygonOffset = new int[INITIAL_CONTOURS];
+    private int[] polygonCount = new int[INITIAL_CONTOURS];
+    private int[] bounds = new int[INITIAL_CONTOURS * 4]; // left, top, right, bottom
+    private float[] area = new float[INITIAL_CONTOURS];
+    private float[] perimeter = new float[INITIAL_CONTOURS];
+    private int count = 0;
+
+    // Forget the previous frame, keeping all storage
+    public void clear() {
+        count = 0;
+        pointsUsed = 0;
+        polygonUsed = 0;
+    }
+
+    // ============ Accessors ============
+    public int size() {
+        return count;
+    }
+
+    public int[] getPoints() {
+        return points;
+    }
+
+    public int getPointOffset(int index) {
+        return pointOffset[index];
+    }
+
+    public int getPointCount(int index) {
+        return pointCount[index];
+    }
+
+    public int[] getPolygonPoints() {
+        return polygonPoints;
+    }
+
+    public int getPolygonOffset(int index) {
+        return polygonOffset[index];
+    }
+
+    public int getPolygonCount(int index) {
+        return polygonCount[index];
+    }
+
+    public int getLeft(int index) {
+        return bounds[index * 4];
+    }
+
+    public int getTop(int index) {
+        return bounds[index * 4 + 1];
+    }
+
+    public int getRight(int index) {
+        return bounds[index * 4 + 2];
+    }
+
+    public int getBottom(int index) {
+        return bounds[index * 4 + 3];
+    }
+
+    public float getArea(int index) {
+        return area[index];
+    }
+
+    public float getPerimeter(int index) {
+        return perimeter[index];
+    }
+
+    // ============ Filling (used by ContourStage) ============
+
+    /**
+     * Append a contour outline and its measures
+     *
+     * @param source Interleaved x, y coordinates
+     * @param numPoints Number of points in source
+     * @return Index of the new contour
+     */
+    int add(int[] source, int numPoints, int left, int top, int right, int bottom,
+            double contourArea, double contourPerimeter) {
+        if (count == pointOffset.length) {
+            growContours();
+        }
+        int ints = numPoints * 2;
+        points = ensureCapacity(points, pointsUsed + ints);
+        System.arraycopy(source, 0, points, pointsUsed, ints);
+
+        int index = count++;
+        pointOffset[index] = pointsUsed;
+        pointCount[index] = numPoints;
+        polygonOffset[index] = polygonUsed;
+        polygonCount[index] = 0;
+        bounds[index * 4] = left;
+        bounds[index * 4 + 1] = top;
+        bounds[index * 4 + 2] = right;
+        bounds[index * 4 + 3] = bottom;
+        area[index] = (float) contourArea;
+        perimeter[index] = (float) contourPerimeter;
+        pointsUsed += ints;
+        return index;
+    }
+
+    // Append one polygon vertex to the most recently added contour
+    void addPolygonPoint(int x, int y) {
+        polygonPoints = ensureCapacity(polygonPoints, polygonUsed + 2);
+        polygonPoints[polygonUsed++] = x;
+        polygonPoints[polygonUsed++] = y;
+        polygonCount[count - 1]++;
+    }
+
+    private void growContours() {
+        int capacity = pointOffset.length * 2;
+        pointOffset = Arrays.copyOf(pointOffset, capacity);
+        pointCount = Arrays.copyOf(pointCount, capacity);
+        polygonOffset = Arrays.copyOf(polygonOffset, capacity);
+        polygonCount = Arrays.copyOf(polygonCount, capacity);
+        bounds = Arrays.copyOf(bounds, capacity * 4);
+        area = Arrays.copyOf(area, capacity);
+        perimeter = Arrays.copyOf(perimeter, capacity);
+    }
+
+    private static int[] ensureCapacity(int[] array, int required) {
+        if (required <= array.length) {
+            return array;
+        }
+        return Arrays.copyOf(array, Math.max(required, array.length * 2));
+    }
+}
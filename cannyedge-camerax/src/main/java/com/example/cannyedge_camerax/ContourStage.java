@@ -0,0 +1,390 @@
+package com.example.cannyedge_camerax;
+
+/**
+ * ContourStage - Contour extraction and shape analysis on the Canny edge map
+ * Flow: edge bytes → outer border following (Suzuki-Abe, like Imgproc.findContours with
+ *       RETR_EXTERNAL / CHAIN_APPROX_SIMPLE) → area / perimeter filter
+ *       → bounding box + polygon approximation → pooled ContourSet → consumer
+ *
+ * Borders are traced in plain Java on the analyzer's edge bytes, over a reused int label
+ * buffer, straight into reused int[] storage: no native Mats per contour and no JNI copies,
+ * so a frame allocates nothing once the buffers have grown. Filtering happens before anything
+ * is stored, and the polygon approximation (Douglas-Peucker, like Imgproc.approxPolyDP) runs
+ * on the flat int[] coordinates.
+ */
+public class ContourStage {
+
+    /**
+     * Receives the contours of each processed frame on the analyzer thread
+     * The ContourSet is reused for the next frame, so copy anything that must be kept
+     */
+    public interface Consumer {
+        void onContours(ContourSet contours);
+    }
+
+    // Label of the picture frame, which border following treats as the outermost hole border
+    private static final int FRAME_LABEL = 1;
+
+    // ============ Filter and approximation parameters ============
+    private final double minArea;          // Smallest contour area kept (pixels²)
+    private final double minPerimeter;     // Shortest contour perimeter kept (pixels)
+    private final double epsilonFactor;    // Polygon tolerance as a fraction of the perimeter
+
+    // ============ Reused storage ============
+    private final ContourSet contours = new ContourSet();
+    private int[] labels = new int[0];            // Edge map with a zero border, then border labels
+    private int labelStride;                      // width + 2
+    private int[] borderParent = new int[256];    // Per border label: label of the enclosing border
+    private boolean[] borderIsHole = new boolean[256];
+    private final int[] neighborOffset = new int[8];
+    private int[] scratch = new int[1024];        // Interleaved x, y of the contour being traced
+    private boolean[] keep = new boolean[512];    // Polygon vertex flags
+    private int[] segmentStack = new int[1024];   // Douglas-Peucker (start, end) pairs
+
+    private Consumer consumer;
+
+    /**
+     * @param minArea Smallest contour area kept (pixels²)
+     * @param minPerimeter Shortest contour perimeter kept (pixels)
+     * @param epsilonFactor Polygon tolerance as a fraction of the perimeter (e.g. 0.02)
+     */
+    public ContourStage(double minArea, double minPerimeter, double epsilonFactor) {
+        this.minArea = minArea;
+        this.minPerimeter = minPerimeter;
+        this.epsilonFactor = epsilonFactor;
+        borderIsHole[FRAME_LABEL] = true;
+        borderParent[FRAME_LABEL] = FRAME_LABEL;
+    }
+
+    public void setConsumer(Consumer consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Extract, filter and analyze the outer contours of an edge map
+     *
+     * @param edges Edge map, row-major (0 = background, anything else = edge), not modified
+     * @param width Edge map width
+     * @param height Edge map height
+     * @return Pooled contours of this frame (valid until the next call)
+     */
+    public ContourSet process(byte[] edges, int width, int height) {
+        contours.clear();
+
+        // Step 1: Binary label image with a zero border (tracing never leaves the picture)
+        prepareLabels(edges, width, height);
+
+        // Step 2: Raster scan; every border is followed once so its pixels are labeled,
+        // but only outer borders directly inside the frame are analyzed
+        int nextLabel = FRAME_LABEL;
+        for (int y = 1; y <= height; y++) {
+            int lastLabel = FRAME_LABEL; // Last border crossed on this row
+            int rowStart = y * labelStride;
+            for (int x = 1; x <= width; x++) {
+                int index = rowStart + x;
+                int value = labels[index];
+                if (value == 0) {
+                    continue;
+                }
+
+                boolean outer = value == 1 && labels[index - 1] == 0;
+                if (outer || (value >= 1 && labels[index + 1] == 0)) {
+                    if (!outer && value > 1) {
+                        lastLabel = value; // The hole's pixel already belongs to its outer border
+                    }
+                    int label = ++nextLabel;
+                    if (label == borderParent.length) {
+                        growBorders();
+                    }
+                    // Parent from the last border crossed (Suzuki-Abe, table 1)
+                    borderIsHole[label] = !outer;
+                    borderParent[label] = outer == borderIsHole[lastLabel]
+                            ? lastLabel : borderParent[lastLabel];
+
+                    boolean external = outer && borderParent[label] == FRAME_LABEL;
+                    int numPoints = followBorder(index, outer ? 4 : 0, label, external);
+                    if (external && numPoints >= 3) {
+                        analyze(scratch, numPoints);
+                    }
+                }
+
+                value = labels[index];
+                if (value != 1) {
+                    lastLabel = Math.abs(value);
+                }
+            }
+        }
+
+        // Step 3: Hand the results over without boxing
+        if (consumer != null) {
+            consumer.onContours(contours);
+        }
+        return contours;
+    }
+
+    // Copy the edge map into the label buffer (1 = edge); the zero border is never written
+    private void prepareLabels(byte[] edges, int width, int height) {
+        int stride = width + 2;
+        int size = stride * (height + 2);
+        if (labels.length != size || labelStride != stride) {
+            labels = new int[size];
+            labelStride = stride;
+            // Neighbors clockwise (y down) from east: E, SE, S, SW, W, NW, N, NE
+            neighborOffset[0] = 1;
+            neighborOffset[1] = stride + 1;
+            neighborOffset[2] = stride;
+            neighborOffset[3] = stride - 1;
+            neighborOffset[4] = -1;
+            neighborOffset[5] = -stride - 1;
+            neighborOffset[6] = -stride;
+            neighborOffset[7] = -stride + 1;
+        }
+        for (int y = 0; y < height; y++) {
+            int source = y * width;
+            int target = (y + 1) * stride + 1;
+            for (int x = 0; x < width; x++) {
+                labels[target + x] = edges[source + x] != 0 ? 1 : 0;
+            }
+        }
+    }
+
+    /**
+     * Follow one border from its start pixel, labeling its pixels
+     * The pixel in startDirection is the 0-pixel that revealed the border (west for outer
+     * borders, east for holes). Straight runs are compressed to their end points, like
+     * CHAIN_APPROX_SIMPLE.
+     *
+     * @param start Label buffer index of the first border pixel
+     * @param startDirection Direction of the revealing 0-pixel (neighbor index)
+     * @param label Label of this border
+     * @param collect Whether to store the points in scratch
+     * @return Number of points stored in scratch (0 if not collecting)
+     */
+    private int followBorder(int start, int startDirection, int label, boolean collect) {
+        int[] offsets = neighborOffset;
+
+        // Step 1: Clockwise from the 0-pixel for the last pixel of the border
+        int direction = -1;
+        for (int k = 0; k < 8; k++) {
+            int d = (startDirection + k) & 7;
+            if (labels[start + offsets[d]] != 0) {
+                direction = d;
+                break;
+            }
+        }
+        int numPoints = 0;
+        if (collect) {
+            numPoints = addPoint(0, start);
+        }
+        if (direction < 0) {
+            labels[start] = -label; // Isolated pixel
+            return numPoints;
+        }
+        int last = start + offsets[direction];
+
+        // Step 2: Counterclockwise around each pixel, starting after the previous one
+        int current = start;
+        int back = direction;        // Direction from the current pixel to the previous one
+        int previousMove = -1;
+        while (true) {
+            int move = -1;
+            boolean eastIsZero = false;
+            for (int k = 1; k <= 8; k++) {
+                int d = (back - k) & 7;
+                if (labels[current + offsets[d]] != 0) {
+                    move = d;
+                    break;
+                }
+                if (d == 0) {
+                    eastIsZero = true;
+                }
+            }
+
+            // Negative labels mark pixels whose right side is background (row scan must not
+            // start a hole border there again)
+            if (eastIsZero) {
+                labels[current] = -label;
+            } else if (labels[current] == 1) {
+                labels[current] = label;
+            }
+
+            if (collect && previousMove >= 0 && move != previousMove) {
+                numPoints = addPoint(numPoints, current);
+            }
+            int next = current + offsets[move];
+            if (next == start && current == last) {
+                return numPoints;
+            }
+            previousMove = move;
+            back = (move + 4) & 7;
+            current = next;
+        }
+    }
+
+    // Append a label buffer position to scratch as image coordinates
+    private int addPoint(int numPoints, int index) {
+        if (scratch.length < numPoints * 2 + 2) {
+            int[] larger = new int[scratch.length * 2];
+            System.arraycopy(scratch, 0, larger, 0, numPoints * 2);
+            scratch = larger;
+        }
+        scratch[numPoints * 2] = index % labelStride - 1;
+        scratch[numPoints * 2 + 1] = index / labelStride - 1;
+        return numPoints + 1;
+    }
+
+    private void growBorders() {
+        int[] parents = new int[borderParent.length * 2];
+        System.arraycopy(borderParent, 0, parents, 0, borderParent.length);
+        borderParent = parents;
+        boolean[] holes = new boolean[borderIsHole.length * 2];
+        System.arraycopy(borderIsHole, 0, holes, 0, borderIsHole.length);
+        borderIsHole = holes;
+    }
+
+    // Measure one contour and store it if it passes the filters
+    private void analyze(int[] pts, int numPoints) {
+        // Step 1: Bounding box and perimeter in one pass
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        double length = 0;
+        int prevX = pts[(numPoints - 1) * 2];
+        int prevY = pts[(numPoints - 1) * 2 + 1];
+        for (int p = 0; p < numPoints; p++) {
+            int x = pts[p * 2];
+            int y = pts[p * 2 + 1];
+            if (x < left) left = x;
+            if (x > right) right = x;
+            if (y < top) top = y;
+            if (y > bottom) bottom = y;
+            // Plain sqrt: Math.hypot guards against overflow pixel coordinates can not reach,
+            // and is a slow native call on ART
+            int dx = x - prevX;
+            int dy = y - prevY;
+            length += Math.sqrt(dx * dx + dy * dy);
+            prevX = x;
+            prevY = y;
+        }
+
+        // Step 2: Early rejection (the box area is an upper bound of the contour area)
+        if (length < minPerimeter
+                || (double) (right - left) * (bottom - top) < minArea) {
+            return;
+        }
+
+        // Step 3: Enclosed area (shoelace formula)
+        long twiceArea = 0;
+        prevX = pts[(numPoints - 1) * 2];
+        prevY = pts[(numPoints - 1) * 2 + 1];
+        for (int p = 0; p < numPoints; p++) {
+            int x = pts[p * 2];
+            int y = pts[p * 2 + 1];
+            twiceArea += (long) prevX * y - (long) x * prevY;
+            prevX = x;
+            prevY = y;
+        }
+        double contourArea = Math.abs(twiceArea) * 0.5;
+        if (contourArea < minArea) {
+            return;
+        }
+
+        // Step 4: Store outline and measures, then the approximated polygon
+        contours.add(pts, numPoints, left, top, right + 1, bottom + 1, contourArea, length);
+        approximatePolygon(pts, numPoints, epsilonFactor * length);
+    }
+
+    /**
+     * Closed-curve Douglas-Peucker on interleaved int coordinates
+     * Splits the contour at the point farthest from the first one, simplifies both halves
+     * with an explicit stack and appends the kept vertices to the current contour.
+     */
+    private void approximatePolygon(int[] pts, int numPoints, double epsilon) {
+        if (keep.length < numPoints) {
+            keep = new boolean[numPoints * 2];
+        }
+        for (int p = 0; p < numPoints; p++) {
+            keep[p] = false;
+        }
+
+        // Split point: farthest from the first point
+        int far = 0;
+        long farDistance = -1;
+        for (int p = 1; p < numPoints; p++) {
+            long dx = pts[p * 2] - pts[0];
+            long dy = pts[p * 2 + 1] - pts[1];
+            long distance = dx * dx + dy * dy;
+            if (distance > farDistance) {
+                farDistance = distance;
+                far = p;
+            }
+        }
+        keep[0] = true;
+        keep[far] = true;
+
+        // Segments are (start, end) index pairs; end == numPoints means point 0 (closing edge)
+        int top = 0;
+        top = push(top, 0, far);
+        top = push(top, far, numPoints);
+        double epsilonSquared = epsilon * epsilon;
+
+        while (top > 0) {
+            int end = segmentStack[--top];
+            int start = segmentStack[--top];
+            if (end - start < 2) {
+                continue;
+            }
+
+            int endIndex = end % numPoints;
+            int ax = pts[start * 2];
+            int ay = pts[start * 2 + 1];
+            double dx = pts[endIndex * 2] - ax;
+            double dy = pts[endIndex * 2 + 1] - ay;
+            double lengthSquared = dx * dx + dy * dy;
+
+            // Farthest point from the chord (or from the start point if the chord is degenerate)
+            int farthest = -1;
+            double farthestValue = 0;
+            for (int p = start + 1; p < end; p++) {
+                double px = pts[p * 2] - ax;
+                double py = pts[p * 2 + 1] - ay;
+                double value;
+                if (lengthSquared > 0) {
+                    double cross = px * dy - py * dx;
+                    value = cross * cross / lengthSquared;
+                } else {
+                    value = px * px + py * py;
+                }
+                if (value > farthestValue) {
+                    farthestValue = value;
+                    farthest = p;
+                }
+            }
+
+            if (farthest >= 0 && farthestValue > epsilonSquared) {
+                keep[farthest] = true;
+                top = push(top, start, farthest);
+                top = push(top, farthest, end);
+            }
+        }
+
+        for (int p = 0; p < numPoints; p++) {
+            if (keep[p]) {
+                contours.addPolygonPoint(pts[p * 2], pts[p * 2 + 1]);
+            }
+        }
+    }
+
+    // Push a (start, end) segment, growing the stack if needed
+    private int push(int top, int start, int end) {
+        if (top + 2 > segmentStack.length) {
+            int[] larger = new int[segmentStack.length * 2];
+            System.arraycopy(segmentStack, 0, larger, 0, top);
+            segmentStack = larger;
+        }
+        segmentStack[top++] = start;
+        segmentStack[top++] = end;
+        return top;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.cannyedge_camerax;
+
+/**
+ * EdgeCompositor - Builds the display buffer from a Canny edge map
+ * The edge map is a byte per pixel (0 = background, non-zero = edge) in display orientation,
+ * so it lines up index-for-index with the ARGB display buffer.
+ *
+ * - Pure edges: renderEdges() writes white edges on black in one pass
+ * - Overlay: blend() is called per pixel by YuvToArgbConverter while it builds the color image,
+ *   so the edges are composited in the same pass without an extra full-frame copy
+ * - Annotations: drawBox() outlines a rectangle (e.g. a contour bounding box) in place
+ */
+public final class EdgeCompositor {
+
+    // Alpha is 0..256 so blending is a shift instead of a division (256 = solid mask)
+    public static final int ALPHA_OPAQUE = 256;
+
+    private static final int EDGE_PIXEL = 0xFFFFFFFF;       // White edge
+    private static final int BACKGROUND_PIXEL = 0xFF000000; // Black background
+
+    private EdgeCompositor() {
+    }
+
+    /**
+     * Render white-on-black edges into the display buffer
+     *
+     * @param edges Edge map (CV_8UC1 data), at least count bytes
+     * @param out Output ARGB buffer, at least count pixels
+     * @param count Number of pixels to render
+     */
+    public static void renderEdges(byte[] edges, int[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = edges[i] != 0 ? EDGE_PIXEL : BACKGROUND_PIXEL;
+        }
+    }
+
+    /**
+     * Blend an edge color over a camera pixel
+     *
+     * @param pixel Opaque ARGB camera pixel
+     * @param edgeColor Opaque ARGB edge color
+     * @param alpha Edge opacity, 0..ALPHA_OPAQUE
+     * @return Opaque ARGB result
+     */
+    public static int blend(int pixel, int edgeColor, int alpha) {
+        int inverse = ALPHA_OPAQUE - alpha;
+        // Red and blue blended together, green on its own (no channel overflows into the next)
+        int redBlue = ((pixel & 0xFF00FF) * inverse + (edgeColor & 0xFF00FF) * alpha) >>> 8;
+        int green = ((pixel & 0x00FF00) * inverse + (edgeColor & 0x00FF00) * alpha) >>> 8;
+        return 0xFF000000 | (redBlue & 0xFF00FF) | (green & 0x00FF00);
+    }
+
+    /**
+     * Draw a one-pixel rectangle outline into the display buffer (clipped to the buffer)
+     *
+     * @param out ARGB display buffer
+     * @param width Buffer width
+     * @param height Buffer height
+     * @param left Left edge (inclusive)
+     * @param top Top edge (inclusive)
+     * @param right Right edge (exclusive)
+     * @param bottom Bottom edge (exclusive)
+     * @param color Opaque ARGB line color
+     */
+    public static void drawBox(int[] out, int width, int height,
+                               int left, int top, int right, int bottom, int color) {
+        int x0 = Math.max(0, left);
+        int y0 = Math.max(0, top);
+        int x1 = Math.min(width, right) - 1;
+        int y1 = Math.min(height, bottom) - 1;
+        if (x0 > x1 || y0 > y1) {
+            return;
+        }
+        for (int x = x0; x <= x1; x++) {
+            out[y0 * width + x] = color;
+            out[y1 * width + x] = color;
+        }
+        for (int y = y0; y <= y1; y++) {
+            out[y * width + x0] = color;
+            out[y * width + x1] = color;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.cannyedge_camerax;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfFloat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Size;
+import org.opencv.core.TermCriteria;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.video.Video;
+
+/**
+ * FeatureTracker - Frame-to-frame corner tracking instead of per-frame re-detection
+ * Keyframe: Imgproc.goodFeaturesToTrack finds corners on the grayscale frame
+ * In between: Video.calcOpticalFlowPyrLK moves the surviving corners to the new frame
+ * A new keyframe is taken only when too few corners survive or after a maximum interval,
+ * so most frames cost a sparse optical-flow step instead of a full detection.
+ *
+ * Each point keeps its id while it is tracked, so positions are temporally stable and can be
+ * followed across frames. Points are kept in reused float[] / int[] arrays (x, y interleaved),
+ * and the previous and current frames are two Mats that swap roles instead of being copied twice.
+ */
+public class FeatureTracker {
+
+    // ============ Detection parameters ============
+    private final int maxCorners;          // Corners per keyframe
+    private final double qualityLevel;     // Relative corner quality (goodFeaturesToTrack)
+    private final double minDistance;      // Minimum distance between corners (pixels)
+
+    // ============ Tracking parameters ============
+    private final double minTrackedRatio;  // Re-detect below this fraction of keyframe corners
+    private final int maxKeyframeInterval; // Re-detect at least every N frames
+    private final float maxTrackingError;  // Drop points whose LK error exceeds this
+    private static final Size WINDOW_SIZE = new Size(21, 21);
+    private static final int PYRAMID_LEVELS = 3;
+    private static final TermCriteria TERM_CRITERIA =
+            new TermCriteria(TermCriteria.COUNT + TermCriteria.EPS, 20, 0.03);
+
+    // ============ Reused OpenCV buffers ============
+    private Mat previousGray = new Mat();
+    private Mat currentGray = new Mat();
+    private final MatOfPoint detectedCorners = new MatOfPoint();
+    private final MatOfPoint2f previousPoints = new MatOfPoint2f();
+    private final MatOfPoint2f nextPoints = new MatOfPoint2f();
+    private final MatOfByte status = new MatOfByte();
+    private final MatOfFloat errors = new MatOfFloat();
+
+    // ============ Reused point storage ============
+    private final float[] points;    // Current positions (x, y interleaved)
+    private final int[] pointIds;    // Stable id per tracked point
+    private final int[] cornerScratch;
+    private final float[] nextScratch;
+    private final byte[] statusScratch;
+    private final float[] errorScratch;
+
+    // ============ Tracking state ============
+    private int pointCount = 0;
+    private int keyframePointCount = 0;
+    private int framesSinceKeyframe = 0;
+    private int nextId = 0;
+    private boolean keyframe = false;
+    private boolean hasPrevious = false;
+
+    /**
+     * @param maxCorners Corners detected per keyframe
+     * @param qualityLevel Relative corner quality for goodFeaturesToTrack (e.g. 0.01)
+     * @param minDistance Minimum distance between corners (pixels)
+     * @param minTrackedRatio Re-detect when fewer than this fraction of keyframe corners survive
+     * @param maxKeyframeInterval Re-detect at least every N frames
+     * @param maxTrackingError Drop points whose optical-flow error exceeds this
+     */
+    public FeatureTracker(int maxCorners, double qualityLevel, double minDistance,
+                          double minTrackedRatio, int maxKeyframeInterval, float maxTrackingError) {
+        this.maxCorners = maxCorners;
+        this.qualityLevel = qualityLevel;
+        this.minDistance = minDistance;
+        this.minTrackedRatio = minTrackedRatio;
+        this.maxKeyframeInterval = maxKeyframeInterval;
+        this.maxTrackingError = maxTrackingError;
+
+        points = new float[maxCorners * 2];
+        pointIds = new int[maxCorners];
+        cornerScratch = new int[maxCorners * 2];
+        nextScratch = new float[maxCorners * 2];
+        statusScratch = new byte[maxCorners];
+        errorScratch = new float[maxCorners];
+    }
+
+    /**
+     * Detect or track features on a new grayscale frame
+     *
+     * @param gray Grayscale frame (CV_8UC1), copied internally so the caller may reuse it
+     */
+    public void process(Mat gray) {
+        // Step 1: Keep this frame (the Mat of two frames ago is reused as the target)
+        gray.copyTo(currentGray);
+
+        // Step 2: Sparse tracking while enough points survive, otherwise a new keyframe
+        boolean tracked = false;
+        if (hasPrevious && pointCount > 0 && framesSinceKeyframe < maxKeyframeInterval
+                && currentGray.cols() == previousGray.cols()
+                && currentGray.rows() == previousGray.rows()) {
+            track();
+            tracked = pointCount >= keyframePointCount * minTrackedRatio;
+        }
+
+        if (tracked) {
+            framesSinceKeyframe++;
+            keyframe = false;
+        } else {
+            detect();
+            framesSinceKeyframe = 0;
+            keyframe = true;
+        }
+
+        // Step 3: Current frame becomes the previous one
+        Mat swap = previousGray;
+        previousGray = currentGray;
+        currentGray = swap;
+        hasPrevious = true;
+    }
+
+    // Full corner detection on the current frame (new ids for all points)
+    private void detect() {
+        Imgproc.goodFeaturesToTrack(currentGray, detectedCorners, maxCorners, qualityLevel, minDistance);
+        int found = Math.min(detectedCorners.rows(), maxCorners);
+        if (found > 0) {
+            detectedCorners.get(0, 0, cornerScratch);
+        }
+        for (int i = 0; i < found; i++) {
+            points[i * 2] = cornerScratch[i * 2];
+            points[i * 2 + 1] = cornerScratch[i * 2 + 1];
+            pointIds[i] = nextId++;
+        }
+        pointCount = found;
+        keyframePointCount = found;
+    }
+
+    // Move the current points from the previous frame to the current one and drop lost points
+    private void track() {
+        previousPoints.create(pointCount, 1, CvType.CV_32FC2);
+        previousPoints.put(0, 0, points); // OpenCV copies only the pointCount points that fit
+
+        Video.calcOpticalFlowPyrLK(previousGray, currentGray, previousPoints, nextPoints,
+                status, errors, WINDOW_SIZE, PYRAMID_LEVELS, TERM_CRITERIA);
+
+        nextPoints.get(0, 0, nextScratch);
+        status.get(0, 0, statusScratch);
+        errors.get(0, 0, errorScratch);
+
+        // Compact in place, keeping the order and the ids of the surviving points
+        double width = currentGray.cols();
+        double height = currentGray.rows();
+        int kept = 0;
+        for (int i = 0; i < pointCount; i++) {
+            float x = nextScratch[i * 2];
+            float y = nextScratch[i * 2 + 1];
+            if (statusScratch[i] == 1 && errorScratch[i] <= maxTrackingError
+                    && x >= 0 && y >= 0 && x < width && y < height) {
+                points[kept * 2] = x;
+                points[kept * 2 + 1] = y;
+                pointIds[kept] = pointIds[i];
+                kept++;
+            }
+        }
+        pointCount = kept;
+    }
+
+    // ============ Results (valid until the next process call) ============
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    // Positions, x, y interleaved; only the first 2 * getPointCount() values are valid
+    public float[] getPoints() {
+        return points;
+    }
+
+    public int getPointId(int index) {
+        return pointIds[index];
+    }
+
+    // True if the last frame was a keyframe (full detection)
+    public boolean isKeyframe() {
+        return keyframe;
+    }
+
+    // Fraction of the keyframe corners still tracked (1.0 right after a keyframe)
+    public float getTrackingQuality() {
+        return keyframePointCount == 0 ? 0f : (float) pointCount / keyframePointCount;
+    }
+
+    // Drop all points; the next frame becomes a keyframe
+    public void reset() {
+        pointCount = 0;
+        keyframePointCount = 0;
+        framesSinceKeyframe = 0;
+        hasPrevious = false;
+    }
+
+    // Release native memory (the tracker can not be used afterwards)
+    public void release() {
+        previousGray.release();
+        currentGray.release();
+        detectedCorners.release();
+        previousPoints.release();
+        nextPoints.release();
+        status.release();
+        errors.release();
+    }
+}
@@ -5,6 +5,7 @@ import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
 import android.os.Bundle;
 import android.util.Log;
+import android.util.Size;
 import android.view.WindowManager;
 import android.widget.ImageView;
 import android.widget.Toast;
@@ -12,6 +13,8 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.camera.core.*;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
@@ -26,14 +29,22 @@ import org.opencv.core.Mat;
 import org.opencv.imgproc.Imgproc;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * MainActivity - CameraX + OpenCV real-time image processing
- * Uses manual YUV to BGR Mat conversion (OpenCV standard format CV_8UC3)
- * Complete flow: ImageProxy (YUV) → Mat (BGR) → OpenCV Processing → Mat (BGR) → Bitmap → Display
+ * OpenCV works on the Y plane (grayscale CV_8UC1), the color image is converted directly to ARGB
+ * Complete flow: ImageProxy (YUV) → Mat (gray) → OpenCV Processing → int[] (ARGB) → Bitmap → Display
+ * Display modes: edges only, edges over the color image, or the color image alone
  */
 public class MainActivity extends AppCompatActivity {
 
@@ -41,6 +52,70 @@ public class MainActivity extends AppCompatActivity {
     private static final String TAG = "CameraXOpenCVApp";
     private static final int CAMERA_PERMISSION_REQUEST = 100;
 
+    // ============ Display mode ============
+    // EDGES: Canny edges only (white on black)
+    // OVERLAY: Canny edges blended over the live color image
+    // PASSTHROUGH: live color image through the direct YUV → ARGB converter
+    private enum DisplayMode { EDGES, OVERLAY, PASSTHROUGH }
+    private static final DisplayMode DISPLAY_MODE = DisplayMode.EDGES;
+
+    // Overlay edge color (opaque ARGB) and opacity (0..256, 256 = solid mask)
+    private static final int OVERLAY_EDGE_COLOR = 0xFF00FF00;
+    private static final int OVERLAY_EDGE_ALPHA = 192;
+
+    // ============ Contour stage ============
+    // Contours of the edge map, filtered early and outlined by their bounding boxes.
+    // Off by default so the EDGES view shows only the edges; when on, the quality level decides
+    private static final boolean CONTOUR_STAGE_ENABLED = false;
+    private static final double CONTOUR_MIN_AREA = 400.0;      // pixels² (about 20 x 20)
+    private static final double CONTOUR_MIN_PERIMETER = 60.0;  // pixels
+    private static final double CONTOUR_EPSILON_FACTOR = 0.02; // polygon tolerance / perimeter
+    private static final int CONTOUR_BOX_COLOR = 0xFFFF4081;
+
+    // ============ Feature tracking stage ============
+    // Corners found on keyframes and followed with sparse optical flow in between.
+    // Off by default so the EDGES view shows only the edges; when on, the quality level decides
+    private static final boolean TRACKING_STAGE_ENABLED = false;
+    private static final int TRACKING_MAX_CORNERS = 100;
+    private static final double TRACKING_QUALITY_LEVEL = 0.01;
+    private static final double TRACKING_MIN_DISTANCE = 10.0;   // pixels
+    private static final double TRACKING_MIN_RATIO = 0.6;       // re-detect below 60% survivors
+    private static final int TRACKING_MAX_INTERVAL = 30;        // re-detect at least every ~1 s
+    private static final float TRACKING_MAX_ERROR = 30.0f;
+    private static final int TRACKING_POINT_COLOR = 0xFF00E5FF;
+
+    // ============ Startup warm-up ============
+    // Synthetic frames run through every stage while the camera binds, ahead of the first frame
+    // (best quality level size)
+    private static final int WARMUP_FRAMES = 3;
+    private static final int WARMUP_FRAME_WIDTH = 640;
+    private static final int WARMUP_FRAME_HEIGHT = 480;
+    private static final int WARMUP_ROTATION = 90; // Back camera in portrait
+    // Debug builds can compare the old cvtColor path with the direct converter on the warm-up frame
+    // (enable with: adb shell setprop log.tag.CameraXOpenCVApp DEBUG)
+    private static final int BENCHMARK_FRAMES = 20;
+
+    // ============ Quality governor ============
+    // Quality ladder, best first: analysis resolution, optional stages, target FPS and the
+    // hottest thermal state each level may run at. The governor steps down on thermal pressure
+    // or sustained overload and back up, with hysteresis, when there is headroom again.
+    private static final List<QualityLevel> QUALITY_LEVELS = Arrays.asList(
+            new QualityLevel("full", 640, 480, true, true, 30, ThermalSignal.SEVERITY_LIGHT),
+            new QualityLevel("reduced", 640, 480, true, false, 24, ThermalSignal.SEVERITY_MODERATE),
+            new QualityLevel("low", 320, 240, true, false, 15, ThermalSignal.SEVERITY_SEVERE),
+            new QualityLevel("minimal", 320, 240, false, false, 10, ThermalSignal.SEVERITY_SHUTDOWN)
+    );
+
+    // ============ Lifecycle ============
+    // Longest wait for in-flight frames on pause / destroy (main thread blocks this long at most)
+    private static final long DRAIN_TIMEOUT_MS = 200;
+
+    // Row bands used to split YUV → ARGB conversion across cores
+    private static final int CONVERTER_BANDS =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    // Display bitmaps: one shown, one being filled or waiting to be shown
+    private static final int DISPLAY_BITMAPS = 2;
+
     // ============ UI Components ============
     private ImageView imageView;
 
@@ -50,15 +125,35 @@ public class MainActivity extends AppCompatActivity {
     private Camera camera;
 
     // ============ Executor for camera operations ============
+    // Also loads OpenCV and warms up the analyzer, so warm-up runs on the analysis thread
     private ExecutorService cameraExecutor;
 
-    // ============ OpenCV initialization flag ============
-    private boolean isOpenCvInitialized = false;
+    // ============ Worker pool for band-parallel pixel conversion ============
+    private ExecutorService processingExecutor;
+
+    // ============ Startup state (main thread only) ============
+    private boolean isOpenCvInitialized = false; // OpenCV loaded and analyzer created
+    // Created on cameraExecutor after OpenCV loads, released there on destroy
+    private volatile CannyEdgeAnalyzer cannyEdgeAnalyzer;
+
+    // ============ Frame admission across pause / resume ============
+    private final PipelineGate pipelineGate = new PipelineGate();
+    // Set on resume: the first admitted frame drops state that refers to pre-pause frames
+    private final AtomicBoolean resetOnNextFrame = new AtomicBoolean(false);
 
-    // ============ onCreate - Initialize UI and executor ============
+    // ============ Startup and pipeline timing ============
+    private PipelineMetrics metrics;
+
+    // ============ Quality control (governor evaluated on the analysis thread) ============
+    private QualityGovernor qualityGovernor;
+    private volatile QualityLevel qualityLevel = QUALITY_LEVELS.get(0);
+
+    // ============ onCreate - Initialize UI and start loading in parallel ============
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        metrics = new PipelineMetrics();
+        qualityGovernor = new QualityGovernor(QUALITY_LEVELS, new AndroidThermalSignal(this));
 
         // Keep screen on during camera operation
         getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
@@ -72,29 +167,102 @@ public class MainActivity extends AppCompatActivity {
         // Create single thread executor for camera operations
         cameraExecutor = Executors.newSingleThreadExecutor();
 
+        // Create worker pool for the extra conversion bands (the analyzer thread runs one band itself)
+        if (CONVERTER_BANDS > 1) {
+            processingExecutor = Executors.newFixedThreadPool(CONVERTER_BANDS - 1);
+        }
+
+        // Start the two slow startup tasks in parallel; the camera starts when both are done
+        loadOpenCvAsync();
+        requestCameraProvider();
+
         Log.i(TAG, "onCreate: UI and executor initialized");
     }
 
-    // ============ onResume - Initialize OpenCV and start camera ============
+    // ============ Load OpenCV and warm up the pipeline off the main thread ============
+    private void loadOpenCvAsync() {
+        cameraExecutor.execute(() -> {
+            boolean loaded = OpenCVLoader.initLocal();
+            if (loaded) {
+                metrics.markOpenCvLoaded();
+                CannyEdgeAnalyzer analyzer = new CannyEdgeAnalyzer();
+                cannyEdgeAnalyzer = analyzer;
+
+                // Warm up while the camera binds: queued on this single thread ahead of any frame
+                // (frames arriving meanwhile are replaced by newer ones, keep-only-latest)
+                try {
+                    cameraExecutor.execute(() -> warmUpPipeline(analyzer));
+                } catch (RejectedExecutionException e) {
+                    return; // Destroyed while loading
+                }
+            }
+
+            runOnUiThread(() -> onOpenCvReady(loaded));
+        });
+    }
+
+    // Run synthetic frames through every stage: JIT-compiles the hot paths
+    // and fills the Mat / buffer pools before the first camera frame is analyzed
+    private void warmUpPipeline(CannyEdgeAnalyzer analyzer) {
+        if (cannyEdgeAnalyzer != analyzer) {
+            return; // Released by onDestroy
+        }
+        try {
+            analyzer.warmUp();
+            metrics.markWarmUpDone();
+        } catch (RuntimeException e) {
+            // Warm-up only saves first-frame latency: start cold instead of not at all
+            Log.e(TAG, "warmUpPipeline: Pipeline warm-up failed, starting cold", e);
+        }
+    }
+
+    // ============ OpenCV load finished (main thread) ============
+    private void onOpenCvReady(boolean loaded) {
+        if (isDestroyed()) {
+            return;
+        }
+        if (!loaded) {
+            Log.e(TAG, "onOpenCvReady: OpenCV initialization failed");
+            Toast.makeText(this, "OpenCV initialization failed!", Toast.LENGTH_LONG).show();
+            return;
+        }
+        isOpenCvInitialized = true;
+        Log.i(TAG, "onOpenCvReady: OpenCV loaded " + metrics.getOpenCvLoadedMs()
+                + " ms after onCreate, pipeline warming up while the camera starts");
+        startCameraIfReady();
+    }
+
+    // ============ Get CameraProvider asynchronously ============
+    private void requestCameraProvider() {
+        ListenableFuture<ProcessCameraProvider> cameraProviderFuture =
+                ProcessCameraProvider.getInstance(this);
+
+        cameraProviderFuture.addListener(() -> {
+            try {
+                // Obtain the CameraProvider
+                cameraProvider = cameraProviderFuture.get();
+                startCameraIfReady();
+            } catch (ExecutionException | InterruptedException e) {
+                Log.e(TAG, "requestCameraProvider: Camera provider unavailable", e);
+            }
+        }, ContextCompat.getMainExecutor(this));
+    }
+
+    // ============ onResume - Admit frames again, check permission ============
     @Override
     protected void onResume() {
         super.onResume();
 
-        // Step 1: Initialize OpenCV library (only once)
-        if (!isOpenCvInitialized) {
-            if (OpenCVLoader.initLocal()) {
-                isOpenCvInitialized = true;
-                Log.i(TAG, "onResume: OpenCV loaded successfully");
-            } else {
-                Log.e(TAG, "onResume: OpenCV initialization failed");
-                Toast.makeText(this, "OpenCV initialization failed!", Toast.LENGTH_LONG).show();
-                return;
-            }
+        // Pools and warmed state were kept on pause, so resuming is just opening the gate
+        if (pipelineGate.resume()) {
+            resetOnNextFrame.set(true);
+            metrics.markResumeRequested();
+            Log.i(TAG, "onResume: Pipeline resumed");
         }
 
-        // Step 2: Check camera permission
+        // Check camera permission while OpenCV and the camera provider are still loading
         if (allPermissionsGranted()) {
-            startCamera();
+            startCameraIfReady();
         } else {
             // Request camera permission if not granted
             ActivityCompat.requestPermissions(
@@ -123,8 +291,8 @@ public class MainActivity extends AppCompatActivity {
 
         if (requestCode == CAMERA_PERMISSION_REQUEST) {
             if (allPermissionsGranted()) {
-                // Permission granted - start camera
-                startCamera();
+                // Permission granted - start camera once everything else is ready
+                startCameraIfReady();
             } else {
                 // Permission denied - show message
                 Toast.makeText(
@@ -136,64 +304,125 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    // ============ Start CameraX and bind ImageAnalysis use case ============
-    private void startCamera() {
-        // Get CameraProvider instance asynchronously
-        ListenableFuture<ProcessCameraProvider> cameraProviderFuture =
-                ProcessCameraProvider.getInstance(this);
-
-        cameraProviderFuture.addListener(() -> {
-            try {
-                // Obtain the CameraProvider
-                cameraProvider = cameraProviderFuture.get();
-
-                // Build ImageAnalysis use case for frame processing
-                imageAnalyzer = new ImageAnalysis.Builder()
-                        // Keep only latest frame to avoid backlog
-                        .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
-                        // Use YUV_420_888 format (default) for manual conversion
-                        .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_YUV_420_888)
-                        .build();
-
-                // Set the analyzer callback
-                imageAnalyzer.setAnalyzer(cameraExecutor, new CannyEdgeAnalyzer());
-
-                // Select back camera as default
-                CameraSelector cameraSelector = CameraSelector.DEFAULT_BACK_CAMERA;
-
-                // Unbind all previous use cases before binding new ones
-                cameraProvider.unbindAll();
-
-                // Bind ImageAnalysis use case to lifecycle
-                camera = cameraProvider.bindToLifecycle(
-                        this,
-                        cameraSelector,
-                        imageAnalyzer
-                );
+    // ============ Start the camera once OpenCV, provider and permission are all ready ============
+    private void startCameraIfReady() {
+        if (!isOpenCvInitialized || cameraProvider == null || !allPermissionsGranted()
+                || camera != null) {
+            return;
+        }
+        startCamera();
+    }
 
-                Log.i(TAG, "startCamera: Camera started successfully");
+    // ============ Bind ImageAnalysis use case ============
+    private void startCamera() {
+        // Analysis resolution of the current quality level (closest supported size)
+        QualityLevel level = qualityLevel;
+        ResolutionSelector resolutionSelector = new ResolutionSelector.Builder()
+                .setResolutionStrategy(new ResolutionStrategy(
+                        new Size(level.getAnalysisWidth(), level.getAnalysisHeight()),
+                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_LOWER_THEN_HIGHER))
+                .build();
+
+        // Build ImageAnalysis use case for frame processing
+        imageAnalyzer = new ImageAnalysis.Builder()
+                // Keep only latest frame to avoid backlog
+                .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                // Use YUV_420_888 format (default) for manual conversion
+                .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_YUV_420_888)
+                .setResolutionSelector(resolutionSelector)
+                .build();
+
+        // Set the pre-warmed analyzer callback
+        imageAnalyzer.setAnalyzer(cameraExecutor, cannyEdgeAnalyzer);
+
+        // Select back camera as default
+        CameraSelector cameraSelector = CameraSelector.DEFAULT_BACK_CAMERA;
+
+        // Unbind all previous use cases before binding new ones
+        cameraProvider.unbindAll();
+
+        // Bind ImageAnalysis use case to lifecycle
+        camera = cameraProvider.bindToLifecycle(
+                this,
+                cameraSelector,
+                imageAnalyzer
+        );
+        metrics.markCameraBound();
+
+        Log.i(TAG, "startCamera: Camera started successfully at quality " + level);
+    }
 
-            } catch (ExecutionException | InterruptedException e) {
-                Log.e(TAG, "startCamera: Camera initialization failed", e);
-            }
-        }, ContextCompat.getMainExecutor(this));
+    // ============ Rebind with the new quality level's resolution (main thread) ============
+    private void rebindCamera() {
+        if (camera == null || isDestroyed()) {
+            return;
+        }
+        startCamera();
     }
 
-    // ============ onPause - Lifecycle callback ============
+    // ============ onPause - Stop admitting frames and drain in-flight work ============
     @Override
     protected void onPause() {
         super.onPause();
-        // CameraX handles lifecycle automatically
-        Log.i(TAG, "onPause: Activity paused");
+        // CameraX keeps delivering frames until onStop, so close the gate ourselves;
+        // buffers and warmed state stay allocated for an instant resume
+        pipelineGate.pause();
+        drainPipeline();
+        Log.i(TAG, "onPause: Pipeline paused - " + metrics.lifecycleSummary());
+    }
+
+    // ============ Wait (bounded) for frames that are still being processed ============
+    private void drainPipeline() {
+        long drainStart = System.nanoTime();
+        boolean drained;
+        try {
+            drained = pipelineGate.awaitIdle(DRAIN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drained = false;
+        }
+        metrics.recordDrain((System.nanoTime() - drainStart) / 1_000_000, !drained);
+        if (!drained) {
+            Log.w(TAG, "drainPipeline: " + pipelineGate.getInFlight()
+                    + " frame(s) still in flight after " + DRAIN_TIMEOUT_MS + " ms");
+        }
     }
 
     // ============ onDestroy - Clean up resources ============
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // Shutdown the executor to release resources
+
+        // Step 1: No new frames; wait for the one in flight
+        if (imageAnalyzer != null) {
+            imageAnalyzer.clearAnalyzer();
+        }
+        pipelineGate.release();
+        drainPipeline();
+
+        // Step 2: Release native buffers on the analysis thread, after any queued work
+        cameraExecutor.execute(() -> {
+            CannyEdgeAnalyzer analyzer = cannyEdgeAnalyzer;
+            if (analyzer != null) {
+                analyzer.release();
+                cannyEdgeAnalyzer = null;
+            }
+            metrics.markResourcesReleased();
+        });
+
+        // Step 3: Shutdown the executors to release resources
         cameraExecutor.shutdown();
-        Log.i(TAG, "onDestroy: Executor shut down, resources released");
+        try {
+            if (!cameraExecutor.awaitTermination(DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                Log.w(TAG, "onDestroy: Analysis thread did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (processingExecutor != null) {
+            processingExecutor.shutdown();
+        }
+        Log.i(TAG, "onDestroy: Executor shut down, resources released - " + metrics.lifecycleSummary());
     }
 
     // ==========================================================
@@ -202,167 +431,470 @@ public class MainActivity extends AppCompatActivity {
 
     /**
      * CannyEdgeAnalyzer - Processes each camera frame with OpenCV
-     * Manual conversion flow: ImageProxy (YUV_420_888) → Mat (BGR, CV_8UC3) → Processing → Display
-     * Uses BGR format which is the standard for OpenCV algorithms
+     * Flow: ImageProxy (YUV_420_888) → Y plane as grayscale Mat → Canny → edge map (byte[])
+     *       → display buffer (int[] ARGB) built in one pass → reused Bitmap → Display
+     * The Y plane already is the grayscale image, so Canny needs no color conversion,
+     * and the color image is only produced when the display mode shows it
      */
     private class CannyEdgeAnalyzer implements ImageAnalysis.Analyzer {
 
-        // Frame processing throttle to limit CPU usage
-        private long lastProcessedTime = 0;
-        private final long minProcessInterval = 33; // ~30 FPS (1000ms / 30 = 33ms)
+        // Picks the frames to process for the quality level's target FPS (limits CPU usage)
+        private final FrameScheduler frameScheduler = new FrameScheduler();
+
+        // Direct YUV → ARGB converter and reused display buffers
+        private final YuvToArgbConverter yuvConverter = new YuvToArgbConverter();
+        private int[] argbPixels = new int[0];
+        // Two display bitmaps: the analyzer only writes one the UI thread has handed back,
+        // so it never writes the bitmap being drawn (or one posted but not yet shown)
+        private Bitmap spareBitmap;                                           // Analysis thread only
+        private final AtomicReference<Bitmap> freeBitmap = new AtomicReference<>(); // Returned by the UI
+        private Bitmap shownBitmap;                                           // UI thread only
+        private int displayBitmapCount = 0;
+
+        // Reused OpenCV buffers (reallocated by OpenCV only when the frame size changes)
+        private final Mat lumaMat = new Mat();   // Y plane, sensor orientation (CV_8UC1)
+        private final Mat rotatedMat = new Mat(); // Y plane, display orientation (CV_8UC1)
+        private final Mat edgesMat = new Mat();  // Canny output, display orientation (CV_8UC1)
+        private byte[] edgeBytes = new byte[0];
+
+        // Contour extraction with pooled storage; boxes are drawn into the display buffer
+        private final ContourStage contourStage = new ContourStage(
+                CONTOUR_MIN_AREA, CONTOUR_MIN_PERIMETER, CONTOUR_EPSILON_FACTOR);
+        private int displayWidth;
+        private int displayHeight;
+
+        // Corner tracking across frames
+        private final FeatureTracker featureTracker = new FeatureTracker(
+                TRACKING_MAX_CORNERS, TRACKING_QUALITY_LEVEL, TRACKING_MIN_DISTANCE,
+                TRACKING_MIN_RATIO, TRACKING_MAX_INTERVAL, TRACKING_MAX_ERROR);
+
+        CannyEdgeAnalyzer() {
+            contourStage.setConsumer(this::drawContourBoxes);
+        }
 
         @Override
         public void analyze(@NonNull ImageProxy imageProxy) {
-            // Get current timestamp
-            long currentTime = System.currentTimeMillis();
+            metrics.onImageAcquired();
 
-            // Throttle: Skip frame if processed too recently
-            if (currentTime - lastProcessedTime < minProcessInterval) {
-                imageProxy.close();
+            // Paused or destroyed: close the frame right away
+            if (!pipelineGate.tryEnter()) {
+                metrics.onFrameRejected();
+                closeImage(imageProxy);
                 return;
             }
 
-            // Update last processed time
-            lastProcessedTime = currentTime;
-
             try {
-                // Step 1: Convert ImageProxy (YUV_420_888) to OpenCV Mat (BGR, CV_8UC3)
-                // BGR is the standard format for OpenCV image processing
-                Mat bgrMat = imageProxyToMat(imageProxy);
-
-                // Step 2: Handle camera rotation if needed
-                int rotation = imageProxy.getImageInfo().getRotationDegrees();
-                if (rotation != 0) {
-                    Mat rotatedMat = new Mat();
-                    switch (rotation) {
-                        case 90:
-                            Core.rotate(bgrMat, rotatedMat, Core.ROTATE_90_CLOCKWISE);
-                            break;
-                        case 180:
-                            Core.rotate(bgrMat, rotatedMat, Core.ROTATE_180);
-                            break;
-                        case 270:
-                            Core.rotate(bgrMat, rotatedMat, Core.ROTATE_90_COUNTERCLOCKWISE);
-                            break;
-                    }
-                    bgrMat.release();
-                    bgrMat = rotatedMat;
+                // After a resume: no tracking against the stale pre-pause frame, new frame grid
+                if (resetOnNextFrame.compareAndSet(true, false)) {
+                    featureTracker.reset();
+                    frameScheduler.reset();
                 }
 
-                // Step 3: Apply Canny edge detection (OpenCV processing)
-                Mat processedMat = ImageProcessor.applyCanny(bgrMat);
-
-                // Step 4: Convert processed Mat (BGR) to Bitmap (ARGB_8888) for display
-                Bitmap outputBitmap = matToBitmap(processedMat);
-
-                // Step 5: Display result on UI thread
-                runOnUiThread(() -> imageView.setImageBitmap(outputBitmap));
-
-                // Step 6: Release resources to prevent memory leak
-                bgrMat.release();
-                processedMat.release();
-
-                Log.d(TAG, "analyze: Frame processed successfully");
+                // Throttle: Skip frame unless it is due for the target FPS (sensor timestamp)
+                long timestamp = imageProxy.getImageInfo().getTimestamp();
+                if (!frameScheduler.isDue(timestamp, qualityLevel.getTargetFps())) {
+                    return;
+                }
 
+                processFrame(imageProxy);
             } catch (Exception e) {
                 Log.e(TAG, "analyze: Frame processing failed", e);
             } finally {
-                // Always close ImageProxy to release camera buffer
-                imageProxy.close();
+                // Always close ImageProxy to release camera buffer, then leave the gate
+                closeImage(imageProxy);
+                pipelineGate.exit();
             }
         }
 
-        // ==============================================
-        // Format Conversion Methods
-        // (For production code, consider extracting to
-        //  a separate ImageConverter utility class)
-        // ==============================================
+        // Close an ImageProxy and keep the open-image counter in step
+        private void closeImage(ImageProxy imageProxy) {
+            imageProxy.close();
+            metrics.onImageClosed();
+        }
 
         /**
-         * Convert ImageProxy (YUV_420_888 format) to OpenCV Mat (BGR format, CV_8UC3)
-         * YUV_420_888 is the default camera output format from CameraX
-         * BGR (CV_8UC3) is the standard format for OpenCV algorithms
-         *
-         * YUV_420_888 format structure:
-         * - Y plane: Full resolution luminance (brightness) data
-         * - U plane: Quarter resolution chrominance (color blue difference)
-         * - V plane: Quarter resolution chrominance (color red difference)
+         * Release all native buffers of the stages
+         * Must run on cameraExecutor once no frame can arrive any more
+         */
+        void release() {
+            lumaMat.release();
+            rotatedMat.release();
+            edgesMat.release();
+            featureTracker.release();
+        }
+
+        /**
+         * Run the processing stages for the current display mode and show the result
          *
          * @param imageProxy Input image from CameraX in YUV_420_888 format
-         * @return OpenCV Mat in BGR format (CV_8UC3, 3 channels)
          */
-        private Mat imageProxyToMat(ImageProxy imageProxy) {
-            // Get the three planes (Y, U, V) from ImageProxy
-            ImageProxy.PlaneProxy[] planes = imageProxy.getPlanes();
+        private void processFrame(ImageProxy imageProxy) {
+            long startTime = System.nanoTime();
 
-            // Get ByteBuffers for each plane
-            ByteBuffer yBuffer = planes[0].getBuffer(); // Y plane (luminance)
-            ByteBuffer uBuffer = planes[1].getBuffer(); // U plane (chrominance)
-            ByteBuffer vBuffer = planes[2].getBuffer(); // V plane (chrominance)
+            // Step 1: Copy planes and set up rotated output geometry
+            int rotation = imageProxy.getImageInfo().getRotationDegrees();
+            yuvConverter.prepare(imageProxy, rotation);
 
-            // Calculate sizes for each plane
-            int ySize = yBuffer.remaining();
-            int uSize = uBuffer.remaining();
-            int vSize = vBuffer.remaining();
+            // Steps 2-5: Run the stages into the display buffer
+            runStages();
 
-            // Create byte array to hold NV21 format data
-            // NV21 format: YYYYYYYY VUVUVU (Y plane followed by interleaved VU)
-            byte[] nv21 = new byte[ySize + uSize + vSize];
+            // Step 6: Upload pixels into the next display bitmap and show it
+            publishPixels(argbPixels, displayWidth, displayHeight);
+            if (metrics.markFrameProcessed()) {
+                Log.i(TAG, "processFrame: First frame shown - " + metrics.startupSummary());
+            }
+
+            long processingNanos = System.nanoTime() - startTime;
+            metrics.recordFrame(processingNanos);
+            // Per-frame log only when enabled (building the string every frame is garbage)
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, "processFrame: " + DISPLAY_MODE + " frame in "
+                        + processingNanos / 1000 + " us");
+            }
+
+            // Step 7: Let the governor adjust quality from telemetry and thermal state
+            governQuality();
+        }
+
+        /**
+         * Evaluate the quality governor and apply a level change
+         * Stage set and target FPS apply from the next frame; a new resolution needs a rebind
+         */
+        private void governQuality() {
+            long nowMs = System.nanoTime() / 1_000_000;
+            if (!qualityGovernor.evaluate(nowMs, metrics.getAverageFrameMs(), metrics.getAverageFps())) {
+                return;
+            }
+
+            QualityLevel previous = qualityLevel;
+            QualityLevel next = qualityGovernor.getLevel();
+            qualityLevel = next;
+            Log.i(TAG, "governQuality: " + previous.getName() + " → " + next
+                    + " (" + metrics.telemetrySummary() + ")");
+
+            if (!next.isTrackingEnabled()) {
+                featureTracker.reset();
+            }
+            if (!next.hasSameResolution(previous)) {
+                runOnUiThread(MainActivity.this::rebindCamera);
+            }
+        }
+
+        /**
+         * Run the enabled stages on the prepared frame and fill the display buffer
+         */
+        private void runStages() {
+            int outWidth = yuvConverter.getOutputWidth();
+            int outHeight = yuvConverter.getOutputHeight();
+            int pixelCount = outWidth * outHeight;
+            if (argbPixels.length != pixelCount) {
+                argbPixels = new int[pixelCount];
+            }
+            displayWidth = outWidth;
+            displayHeight = outHeight;
+
+            // Step 2: Grayscale frame in display orientation (only if a stage needs it)
+            QualityLevel level = qualityLevel;
+            boolean edgeMode = DISPLAY_MODE != DisplayMode.PASSTHROUGH;
+            boolean contours = CONTOUR_STAGE_ENABLED && level.isContoursEnabled() && edgeMode;
+            boolean tracking = TRACKING_STAGE_ENABLED && level.isTrackingEnabled();
+            Mat grayMat = (edgeMode || tracking) ? lumaToGray() : null;
+
+            // Step 3: Build the display buffer in a single pass
+            switch (DISPLAY_MODE) {
+                case PASSTHROUGH:
+                    yuvConverter.clearOverlay();
+                    yuvConverter.convert(argbPixels, processingExecutor, CONVERTER_BANDS);
+                    break;
+                case OVERLAY:
+                    // Edges are blended while the color pixels are written
+                    yuvConverter.setOverlay(detectEdges(grayMat), OVERLAY_EDGE_COLOR, OVERLAY_EDGE_ALPHA);
+                    yuvConverter.convert(argbPixels, processingExecutor, CONVERTER_BANDS);
+                    break;
+                case EDGES:
+                default:
+                    EdgeCompositor.renderEdges(detectEdges(grayMat), argbPixels, pixelCount);
+                    break;
+            }
+
+            // Step 4: Contours of the edge map (consumer draws their boxes)
+            if (contours) {
+                contourStage.process(edgeBytes, outWidth, outHeight);
+            }
 
-            // Copy Y plane data
-            yBuffer.get(nv21, 0, ySize);
+            // Step 5: Track corners from the previous frame (full detection only on keyframes)
+            if (tracking) {
+                featureTracker.process(grayMat);
+                drawTrackedPoints();
+            }
+        }
 
-            // Copy V plane data (note: V comes before U in NV21)
-            vBuffer.get(nv21, ySize, vSize);
+        /**
+         * Run synthetic frames through every stage before the first camera frame
+         * Compiles the hot paths and sizes the reused buffers for the expected frame size,
+         * so the first real frame does not pay for JIT warm-up or allocations.
+         * Must run on cameraExecutor (the analysis thread) after OpenCV is loaded.
+         */
+        void warmUp() {
+            // Synthetic I420 frame: gradient with a bright square (gives edges, contours, corners)
+            int width = WARMUP_FRAME_WIDTH;
+            int height = WARMUP_FRAME_HEIGHT;
+            ByteBuffer yPlane = ByteBuffer.allocate(width * height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    boolean inSquare = x > width / 4 && x < width * 3 / 4
+                            && y > height / 4 && y < height * 3 / 4;
+                    yPlane.put(y * width + x, (byte) (inSquare ? 220 : (x + y) / 8));
+                }
+            }
+            ByteBuffer uPlane = ByteBuffer.allocate(width * height / 4);
+            ByteBuffer vPlane = ByteBuffer.allocate(width * height / 4);
+            for (int i = 0; i < width * height / 4; i++) {
+                uPlane.put(i, (byte) 128);
+                vPlane.put(i, (byte) 128);
+            }
 
-            // Copy U plane data
-            uBuffer.get(nv21, ySize + vSize, uSize);
+            // A failing stage propagates to the caller, which then starts with a cold analyzer
+            try {
+                runWarmUpFrames(yPlane, uPlane, vPlane, width, height);
+            } finally {
+                // Forget the synthetic frames even if a stage failed, so real frames start clean
+                featureTracker.reset();
+                yuvConverter.clearOverlay();
+            }
 
-            // Create OpenCV Mat from NV21 data
-            // Height is 1.5x because YUV420 has Y plane + 0.5x UV planes
-            Mat yuvMat = new Mat(imageProxy.getHeight() + imageProxy.getHeight() / 2,
-                    imageProxy.getWidth(), CvType.CV_8UC1);
-            yuvMat.put(0, 0, nv21);
+            // Display bitmaps for the expected size
+            spareBitmap = Bitmap.createBitmap(displayWidth, displayHeight, Bitmap.Config.ARGB_8888);
+            freeBitmap.set(Bitmap.createBitmap(displayWidth, displayHeight, Bitmap.Config.ARGB_8888));
+            displayBitmapCount = DISPLAY_BITMAPS;
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                benchmarkConversion(yPlane, uPlane, vPlane, width, height);
+            }
+        }
+
+        // Run the synthetic frame through the stages WARMUP_FRAMES times
+        private void runWarmUpFrames(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane,
+                                     int width, int height) {
+            for (int frame = 0; frame < WARMUP_FRAMES; frame++) {
+                yuvConverter.prepare(yPlane, uPlane, vPlane, width, height,
+                        width, width / 2, 1, WARMUP_ROTATION);
+                int pixelCount = yuvConverter.getOutputWidth() * yuvConverter.getOutputHeight();
+                if (argbPixels.length != pixelCount) {
+                    argbPixels = new int[pixelCount];
+                }
+                displayWidth = yuvConverter.getOutputWidth();
+                displayHeight = yuvConverter.getOutputHeight();
+
+                // Every enabled stage, whatever the display mode
+                Mat grayMat = lumaToGray();
+                byte[] edges = detectEdges(grayMat);
+                EdgeCompositor.renderEdges(edges, argbPixels, pixelCount);
+                yuvConverter.setOverlay(edges, OVERLAY_EDGE_COLOR, OVERLAY_EDGE_ALPHA);
+                yuvConverter.convert(argbPixels, processingExecutor, CONVERTER_BANDS);
+                yuvConverter.clearOverlay();
+                yuvConverter.convert(argbPixels, processingExecutor, CONVERTER_BANDS);
+                if (CONTOUR_STAGE_ENABLED) {
+                    contourStage.process(edges, displayWidth, displayHeight);
+                }
+                if (TRACKING_STAGE_ENABLED) {
+                    featureTracker.process(grayMat); // keyframe first, then tracking
+                    drawTrackedPoints();
+                }
+            }
+        }
 
-            // Convert YUV (NV21) to BGR format
-            // BGR is OpenCV's standard format (CV_8UC3, 3 channels)
+        /**
+         * Time the former two-step OpenCV display path against the direct converter on the same frame
+         * OpenCV: I420 Mat → cvtColor (BGR) → Core.rotate → cvtColor (RGBA) → Utils.matToBitmap
+         * Direct: YuvToArgbConverter (rotated while converting) → Bitmap.setPixels
+         * Both rotate by 90 (portrait); the first round of each is not timed.
+         *
+         * @param yPlane Y plane of the I420 frame (width * height)
+         * @param uPlane U plane (width * height / 4)
+         * @param vPlane V plane (width * height / 4)
+         * @param width Frame width
+         * @param height Frame height (multiple of 4)
+         */
+        private void benchmarkConversion(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane,
+                                         int width, int height) {
+            // Same frame as one I420 Mat: Y rows, then U and V at a quarter of the size each
+            Mat yuvMat = new Mat(height + height / 2, width, CvType.CV_8UC1);
+            yuvMat.put(0, 0, yPlane.array());
+            yuvMat.put(height, 0, uPlane.array());
+            yuvMat.put(height + height / 4, 0, vPlane.array());
             Mat bgrMat = new Mat();
-            Imgproc.cvtColor(yuvMat, bgrMat, Imgproc.COLOR_YUV2BGR_NV21);
+            Mat rotatedBgrMat = new Mat();
+            Mat rgbaMat = new Mat();
+            Bitmap bitmap = Bitmap.createBitmap(height, width, Bitmap.Config.ARGB_8888);
+
+            long openCvNanos = 0;
+            long bandedNanos = 0;
+            long singleNanos = 0;
+            for (int round = 0; round <= BENCHMARK_FRAMES; round++) {
+                long start = System.nanoTime();
+                Imgproc.cvtColor(yuvMat, bgrMat, Imgproc.COLOR_YUV2BGR_I420);
+                Core.rotate(bgrMat, rotatedBgrMat, Core.ROTATE_90_CLOCKWISE);
+                Imgproc.cvtColor(rotatedBgrMat, rgbaMat, Imgproc.COLOR_BGR2RGBA);
+                Utils.matToBitmap(rgbaMat, bitmap);
+                long openCvEnd = System.nanoTime();
+
+                yuvConverter.prepare(yPlane, uPlane, vPlane, width, height, width, width / 2, 1, 90);
+                yuvConverter.convert(argbPixels, processingExecutor, CONVERTER_BANDS);
+                bitmap.setPixels(argbPixels, 0, height, 0, 0, height, width);
+                long bandedEnd = System.nanoTime();
+
+                yuvConverter.prepare(yPlane, uPlane, vPlane, width, height, width, width / 2, 1, 90);
+                yuvConverter.convert(argbPixels);
+                bitmap.setPixels(argbPixels, 0, height, 0, 0, height, width);
+                long singleEnd = System.nanoTime();
+
+                if (round > 0) {
+                    openCvNanos += openCvEnd - start;
+                    bandedNanos += bandedEnd - openCvEnd;
+                    singleNanos += singleEnd - bandedEnd;
+                }
+            }
+
+            Log.d(TAG, String.format(Locale.US,
+                    "benchmarkConversion: %dx%d rotated 90, avg of %d: cvtColor path %.2f ms, "
+                            + "direct %.2f ms (%d bands), %.2f ms (1 band)",
+                    width, height, BENCHMARK_FRAMES,
+                    openCvNanos / 1e6 / BENCHMARK_FRAMES,
+                    bandedNanos / 1e6 / BENCHMARK_FRAMES, CONVERTER_BANDS,
+                    singleNanos / 1e6 / BENCHMARK_FRAMES));
 
-            // Release temporary YUV Mat
             yuvMat.release();
+            bgrMat.release();
+            rotatedBgrMat.release();
+            rgbaMat.release();
+            bitmap.recycle();
+        }
 
-            return bgrMat;
+        /**
+         * Wrap the Y plane as a grayscale Mat in display orientation
+         *
+         * @return Reused grayscale Mat (CV_8UC1), valid until the next frame
+         */
+        private Mat lumaToGray() {
+            // Step 1: Copy the Y plane into a Mat (rows copied without their padding)
+            int width = yuvConverter.getWidth();
+            int height = yuvConverter.getHeight();
+            int rowStride = yuvConverter.getLumaRowStride();
+            byte[] luma = yuvConverter.getLumaBytes();
+
+            lumaMat.create(height, width, CvType.CV_8UC1);
+            if (rowStride == width) {
+                lumaMat.put(0, 0, luma, 0, width * height);
+            } else {
+                for (int row = 0; row < height; row++) {
+                    lumaMat.put(row, 0, luma, row * rowStride, width);
+                }
+            }
+
+            // Step 2: Rotate to display orientation (single channel, cheap)
+            Mat grayMat = lumaMat;
+            switch (yuvConverter.getRotation()) {
+                case 90:
+                    Core.rotate(lumaMat, rotatedMat, Core.ROTATE_90_CLOCKWISE);
+                    grayMat = rotatedMat;
+                    break;
+                case 180:
+                    Core.rotate(lumaMat, rotatedMat, Core.ROTATE_180);
+                    grayMat = rotatedMat;
+                    break;
+                case 270:
+                    Core.rotate(lumaMat, rotatedMat, Core.ROTATE_90_COUNTERCLOCKWISE);
+                    grayMat = rotatedMat;
+                    break;
+            }
+            return grayMat;
         }
 
         /**
-         * Convert OpenCV Mat (BGR format, CV_8UC3) to Android Bitmap (ARGB_8888)
-         * This conversion is needed for displaying the processed image in ImageView
+         * Run Canny on the grayscale frame and copy the edge map out
          *
-         * @param bgrMat Input Mat in BGR format (CV_8UC3, 3 channels)
-         * @return Output Bitmap in ARGB_8888 format for Android display
+         * @param grayMat Grayscale frame in display orientation (CV_8UC1)
+         * @return Edge map (0 = background, 255 = edge), indexed like the display buffer
          */
-        private Bitmap matToBitmap(Mat bgrMat) {
-            // Convert BGR to RGBA for bitmap conversion
-            // Android Bitmap expects RGBA format, not BGR
-            Mat rgbaMat = new Mat();
-            Imgproc.cvtColor(bgrMat, rgbaMat, Imgproc.COLOR_BGR2RGBA);
+        private byte[] detectEdges(Mat grayMat) {
+            // Step 1: Apply Canny edge detection (OpenCV processing)
+            ImageProcessor.detectEdges(grayMat, edgesMat);
+
+            // Step 2: Copy the edge map into the reused byte buffer
+            int count = (int) edgesMat.total();
+            if (edgeBytes.length != count) {
+                edgeBytes = new byte[count];
+            }
+            edgesMat.get(0, 0, edgeBytes);
+            return edgeBytes;
+        }
 
-            // Create Bitmap with same dimensions as Mat
-            Bitmap bitmap = Bitmap.createBitmap(
-                    rgbaMat.cols(),
-                    rgbaMat.rows(),
-                    Bitmap.Config.ARGB_8888
-            );
+        /**
+         * Outline each contour's bounding box in the display buffer
+         *
+         * @param contours Contours of the current frame (display orientation)
+         */
+        private void drawContourBoxes(ContourSet contours) {
+            for (int i = 0; i < contours.size(); i++) {
+                EdgeCompositor.drawBox(argbPixels, displayWidth, displayHeight,
+                        contours.getLeft(i), contours.getTop(i),
+                        contours.getRight(i), contours.getBottom(i),
+                        CONTOUR_BOX_COLOR);
+            }
+        }
 
-            // Use OpenCV utility to convert Mat to Bitmap
-            // Utils.matToBitmap handles RGBA to ARGB conversion internally
-            Utils.matToBitmap(rgbaMat, bitmap);
+        /**
+         * Mark each tracked corner with a small square in the display buffer
+         */
+        private void drawTrackedPoints() {
+            float[] points = featureTracker.getPoints();
+            for (int i = 0; i < featureTracker.getPointCount(); i++) {
+                int x = (int) points[i * 2];
+                int y = (int) points[i * 2 + 1];
+                EdgeCompositor.drawBox(argbPixels, displayWidth, displayHeight,
+                        x - 2, y - 2, x + 3, y + 3, TRACKING_POINT_COLOR);
+            }
+        }
 
-            // Release temporary RGBA Mat
-            rgbaMat.release();
+        /**
+         * Copy ARGB pixels into a free Bitmap and post it to the ImageView
+         * If the UI thread has not shown the previous frame yet (so no bitmap is free), this frame
+         * is not displayed: the next one will be, and no bitmap is written while it is drawn.
+         *
+         * @param pixels ARGB_8888 pixels, width * height long
+         * @param width Bitmap width
+         * @param height Bitmap height
+         */
+        private void publishPixels(int[] pixels, int width, int height) {
+            Bitmap bitmap = spareBitmap;
+            spareBitmap = null;
+            if (bitmap == null) {
+                bitmap = freeBitmap.getAndSet(null);
+            }
+            if (bitmap == null) {
+                if (displayBitmapCount == DISPLAY_BITMAPS) {
+                    return;
+                }
+                displayBitmapCount++; // Not preallocated (warm-up failed)
+            }
+            if (bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height) {
+                // New, or the frame size changed: replace it (the count stays the same)
+                bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            }
+            bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
 
-            return bitmap;
+            final Bitmap outputBitmap = bitmap;
+            runOnUiThread(() -> showBitmap(outputBitmap));
+        }
+
+        // UI thread: show a bitmap and hand the one it replaces back to the analyzer
+        private void showBitmap(Bitmap bitmap) {
+            imageView.setImageBitmap(bitmap);
+            Bitmap replaced = shownBitmap;
+            shownBitmap = bitmap;
+            if (replaced != null) {
+                freeBitmap.set(replaced);
+            }
         }
     }
 
@@ -372,7 +904,8 @@ public class MainActivity extends AppCompatActivity {
 
     /**
      * ImageProcessor - Contains OpenCV image processing algorithms
-     * All methods expect input in BGR format (CV_8UC3), which is OpenCV's standard
+     * The analyzer works on the Y plane, so all methods take grayscale input (CV_8UC1)
+     * and write into caller-owned Mats that are reused across frames
      */
     public static class ImageProcessor {
 
@@ -381,56 +914,32 @@ public class MainActivity extends AppCompatActivity {
         private static final double THRESHOLD2 = 150.0; // Upper threshold for edge detection
 
         /**
-         * Apply Canny edge detection to input Mat
-         * Input and output are both in BGR format (CV_8UC3)
+         * Apply Canny edge detection to a grayscale Mat, writing into a caller-owned Mat
+         * Used by the analyzer so no Mats are allocated per frame
          *
          * Canny edge detection algorithm:
-         * 1. Convert to grayscale (edges don't need color information)
-         * 2. Apply Gaussian blur to reduce noise
-         * 3. Find intensity gradients
-         * 4. Apply non-maximum suppression
-         * 5. Apply double threshold to identify edges
-         * 6. Track edges by hysteresis
+         * 1. Apply Gaussian blur to reduce noise
+         * 2. Find intensity gradients
+         * 3. Apply non-maximum suppression
+         * 4. Apply double threshold to identify edges
+         * 5. Track edges by hysteresis
          *
-         * @param input Input Mat in BGR format (CV_8UC3)
-         * @return Output Mat with edges in BGR format (white edges on black background)
+         * @param gray Input Mat in grayscale format (CV_8UC1)
+         * @param edges Output Mat with edges (CV_8UC1, 255 = edge), reallocated only if the size changes
          */
-        public static Mat applyCanny(Mat input) {
-            // Create temporary matrices
-            Mat grayMat = new Mat();   // Grayscale image
-            Mat edgesMat = new Mat();  // Edge detection result (single channel)
-
-            // Step 1: Convert BGR to Grayscale
-            // Canny algorithm requires single channel (grayscale) input
-            Imgproc.cvtColor(input, grayMat, Imgproc.COLOR_BGR2GRAY);
-
-            // Step 2: Apply Canny edge detection algorithm
-            // THRESHOLD1: Lower threshold for edge linking
-            // THRESHOLD2: Upper threshold for initial edge detection
-            Imgproc.Canny(grayMat, edgesMat, THRESHOLD1, THRESHOLD2);
-
-            // Step 3: Convert grayscale edges back to BGR (3 channels)
-            // This allows the result to be displayed in color or further processed
-            Mat outputMat = new Mat();
-            Imgproc.cvtColor(edgesMat, outputMat, Imgproc.COLOR_GRAY2BGR);
-
-            // Step 4: Release temporary matrices to prevent memory leak
-            grayMat.release();
-            edgesMat.release();
-
-            return outputMat;
+        public static void detectEdges(Mat gray, Mat edges) {
+            Imgproc.Canny(gray, edges, THRESHOLD1, THRESHOLD2);
         }
 
         /**
          * PLACEHOLDER: Add more OpenCV processing methods here
-         * All methods should work with BGR format (CV_8UC3) for consistency
+         * All methods should take grayscale input (CV_8UC1) and a reused output Mat for consistency
          *
          * Examples:
          * - Gaussian Blur: Imgproc.GaussianBlur(input, output, kernelSize, sigma)
          * - Threshold: Imgproc.threshold(input, output, thresh, maxval, type)
          * - Morphology: Imgproc.morphologyEx(input, output, op, kernel)
          * - Contours: Imgproc.findContours(...)
-         * - Color space: Imgproc.cvtColor(input, output, Imgproc.COLOR_BGR2HSV)
          */
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.example.cannyedge_camerax;
+
+/**
+ * ManualThermalSignal - ThermalSignal whose values are set by hand
+ * Lets QualityGovernor run on a desktop JVM (no Android services) and allows forcing
+ * a thermal state for manual testing on a device.
+ */
+public class ManualThermalSignal implements ThermalSignal {
+
+    private volatile int thermalSeverity = SEVERITY_NONE;
+    private volatile boolean powerSaveMode = false;
+    private volatile int batteryPercent = 100;
+    private volatile boolean charging = true;
+
+    public void setThermalSeverity(int thermalSeverity) {
+        this.thermalSeverity = thermalSeverity;
+    }
+
+    public void setPowerSaveMode(boolean powerSaveMode) {
+        this.powerSaveMode = powerSaveMode;
+    }
+
+    public void setBattery(int batteryPercent, boolean charging) {
+        this.batteryPercent = batteryPercent;
+        this.charging = charging;
+    }
+
+    @Override
+    public int getThermalSeverity() {
+        return thermalSeverity;
+    }
+
+    @Override
+    public boolean isPowerSaveMode() {
+        return powerSaveMode;
+    }
+
+    @Override
+    public int getBatteryPercent() {
+        return batteryPercent;
+    }
+
+    @Override
+    public boolean isCharging() {
+        return charging;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.cannyedge_camerax;
+
+/**
+ * PipelineGate - Admission control for camera frames across the Activity lifecycle
+ * RUNNING: frames are admitted and counted while in flight
+ * PAUSED: new frames are rejected (closed right away); buffers and warmed state are kept
+ * RELEASED: terminal, nothing is admitted any more
+ *
+ * The analyzer calls tryEnter() / exit() around each frame; the Activity pauses the gate
+ * and waits for in-flight frames with awaitIdle() before the UI goes away.
+ */
+public class PipelineGate {
+
+    private enum State { RUNNING, PAUSED, RELEASED }
+
+    private State state = State.RUNNING;
+    private int inFlight = 0;
+
+    /**
+     * Admit a frame if the pipeline is running
+     *
+     * @return true if admitted; the caller must then call exit() when done with the frame
+     */
+    public synchronized boolean tryEnter() {
+        if (state != State.RUNNING) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    // An admitted frame is done (its ImageProxy closed)
+    public synchronized void exit() {
+        inFlight--;
+        if (inFlight == 0) {
+            notifyAll();
+        }
+    }
+
+    // Stop admitting frames (in-flight frames finish normally)
+    public synchronized void pause() {
+        if (state == State.RUNNING) {
+            state = State.PAUSED;
+        }
+    }
+
+    /**
+     * Admit frames again
+     *
+     * @return true if the gate was paused
+     */
+    public synchronized boolean resume() {
+        if (state != State.PAUSED) {
+            return false;
+        }
+        state = State.RUNNING;
+        return true;
+    }
+
+    // Stop admitting frames for good
+    public synchronized void release() {
+        state = State.RELEASED;
+    }
+
+    /**
+     * Wait until no admitted frame is in flight
+     *
+     * @param timeoutMs Maximum time to wait
+     * @return true if idle, false if the timeout expired first
+     */
+    public synchronized boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000;
+        while (inFlight > 0) {
+            long remainingMs = (deadline - System.nanoTime()) / 1_000_000;
+            if (remainingMs <= 0) {
+                return false;
+            }
+            wait(remainingMs);
+        }
+        return true;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized boolean isRunning() {
+        return state == State.RUNNING;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.cannyedge_camerax;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PipelineMetrics - Timing milestones of the processing pipeline
+ * All times are milliseconds since the metrics object was created (Activity onCreate),
+ * or -1 if the milestone has not been reached yet.
+ *
+ * Startup: OpenCV loaded → pipeline warmed up → camera bound → first processed frame
+ * Lifecycle: drain time on pause, resume latency (onResume → next processed frame),
+ * and leak counters (ImageProxies not yet closed, native resources released on destroy)
+ * Telemetry: smoothed processing time per frame and processed frames per second
+ *
+ * Plain Java (System.nanoTime) so it can be used without an Android runtime.
+ * Written from several threads, so fields are volatile and counters atomic.
+ */
+public class PipelineMetrics {
+
+    private static final long NOT_REACHED = -1;
+
+    // Telemetry smoothing (exponential moving average weight of the newest frame)
+    private static final double SMOOTHING = 0.1;
+    // Gaps longer than this (pause, camera rebind) restart the FPS measurement
+    private static final long MAX_FRAME_GAP_NANOS = 1_000_000_000L;
+
+    private final long createdNanos = System.nanoTime();
+
+    // ============ Startup milestones (nanoTime, NOT_REACHED until set) ============
+    private volatile long openCvLoadedNanos = NOT_REACHED;
+    private volatile long warmUpDoneNanos = NOT_REACHED;
+    private volatile long cameraBoundNanos = NOT_REACHED;
+    private volatile long firstFrameNanos = NOT_REACHED;
+
+    // ============ Lifecycle ============
+    private volatile long resumeRequestedNanos = NOT_REACHED;
+    private volatile long lastResumeLatencyMs = NOT_REACHED;
+    private volatile long lastDrainMs = NOT_REACHED;
+    private final AtomicInteger drainTimeouts = new AtomicInteger();
+    private final AtomicInteger framesRejected = new AtomicInteger();
+    private final AtomicInteger openImages = new AtomicInteger();
+    private volatile boolean resourcesReleased = false;
+
+    // ============ Telemetry (written by the analysis thread only) ============
+    private volatile double averageFrameMs = 0;
+    private volatile double averageFps = 0;
+    private volatile long framesProcessed = 0;
+    private long lastFrameEndNanos = NOT_REACHED;
+
+    // ============ Startup markers ============
+    public void markOpenCvLoaded() {
+        openCvLoadedNanos = System.nanoTime();
+    }
+
+    public void markWarmUpDone() {
+        warmUpDoneNanos = System.nanoTime();
+    }
+
+    public void markCameraBound() {
+        cameraBoundNanos = System.nanoTime();
+    }
+
+    /**
+     * Record a processed frame
+     * The first one is the startup milestone; the first one after markResumeRequested()
+     * closes the resume latency measurement
+     *
+     * @return true if this call recorded the first frame since startup
+     */
+    public boolean markFrameProcessed() {
+        long now = System.nanoTime();
+
+        // First frame after a resume closes the resume latency measurement
+        long resumeNanos = resumeRequestedNanos;
+        if (resumeNanos != NOT_REACHED) {
+            lastResumeLatencyMs = (now - resumeNanos) / 1_000_000;
+            resumeRequestedNanos = NOT_REACHED;
+        }
+
+        if (firstFrameNanos != NOT_REACHED) {
+            return false;
+        }
+        firstFrameNanos = now;
+        return true;
+    }
+
+    /**
+     * Record the processing time of one frame and update the smoothed telemetry
+     * Call from the analysis thread only
+     *
+     * @param processingNanos Time from frame arrival to display buffer published
+     */
+    public void recordFrame(long processingNanos) {
+        recordFrame(processingNanos, System.nanoTime());
+    }
+
+    /**
+     * Same as recordFrame(long) with an explicit clock (e.g. simulated time)
+     *
+     * @param processingNanos Time from frame arrival to display buffer published
+     * @param now Time the frame finished (System.nanoTime() scale)
+     */
+    public void recordFrame(long processingNanos, long now) {
+        double frameMs = processingNanos / 1_000_000.0;
+        averageFrameMs = framesProcessed == 0
+                ? frameMs
+                : averageFrameMs + SMOOTHING * (frameMs - averageFrameMs);
+
+        if (lastFrameEndNanos != NOT_REACHED) {
+            long gap = now - lastFrameEndNanos;
+            if (gap > 0 && gap < MAX_FRAME_GAP_NANOS) {
+                double fps = 1_000_000_000.0 / gap;
+                averageFps = averageFps == 0 ? fps : averageFps + SMOOTHING * (fps - averageFps);
+            }
+        }
+        lastFrameEndNanos = now;
+        framesProcessed++;
+    }
+
+    // ============ Lifecycle markers ============
+    public void markResumeRequested() {
+        resumeRequestedNanos = System.nanoTime();
+    }
+
+    /**
+     * Record how long draining in-flight frames took on pause / destroy
+     *
+     * @param drainMs Time spent waiting
+     * @param timedOut true if frames were still in flight when the timeout expired
+     */
+    public void recordDrain(long drainMs, boolean timedOut) {
+        lastDrainMs = drainMs;
+        if (timedOut) {
+            drainTimeouts.incrementAndGet();
+        }
+    }
+
+    // A frame arrived while the pipeline was paused and was closed without processing
+    public void onFrameRejected() {
+        framesRejected.incrementAndGet();
+    }
+
+    // ImageProxy bookkeeping: every acquired image must be closed exactly once
+    public void onImageAcquired() {
+        openImages.incrementAndGet();
+    }
+
+    public void onImageClosed() {
+        openImages.decrementAndGet();
+    }
+
+    // All native buffers (Mats) of the pipeline were released
+    public void markResourcesReleased() {
+        resourcesReleased = true;
+    }
+
+    // ============ Startup readings (ms since creation, -1 = not reached) ============
+    public long getOpenCvLoadedMs() {
+        return sinceCreated(openCvLoadedNanos);
+    }
+
+    public long getWarmUpDoneMs() {
+        return sinceCreated(warmUpDoneNanos);
+    }
+
+    public long getCameraBoundMs() {
+        return sinceCreated(cameraBoundNanos);
+    }
+
+    public long getTimeToFirstFrameMs() {
+        return sinceCreated(firstFrameNanos);
+    }
+
+    // ============ Telemetry readings ============
+    public double getAverageFrameMs() {
+        return averageFrameMs;
+    }
+
+    public double getAverageFps() {
+        return averageFps;
+    }
+
+    public long getFramesProcessed() {
+        return framesProcessed;
+    }
+
+    // ============ Lifecycle readings ============
+    // onResume → first processed frame of the last resume (ms, -1 = none yet)
+    public long getLastResumeLatencyMs() {
+        return lastResumeLatencyMs;
+    }
+
+    public long getLastDrainMs() {
+        return lastDrainMs;
+    }
+
+    public int getDrainTimeouts() {
+        return drainTimeouts.get();
+    }
+
+    public int getFramesRejected() {
+        return framesRejected.get();
+    }
+
+    // ImageProxies acquired but not closed yet (0 when idle; anything else is a leak)
+    public int getOpenImages() {
+        return openImages.get();
+    }
+
+    public boolean isResourcesReleased() {
+        return resourcesReleased;
+    }
+
+    private long sinceCreated(long nanos) {
+        return nanos == NOT_REACHED ? NOT_REACHED : (nanos - createdNanos) / 1_000_000;
+    }
+
+    // One-line summary for logging
+    public String startupSummary() {
+        return String.format(Locale.US,
+                "OpenCV loaded %d ms, warm-up done %d ms, camera bound %d ms, first frame %d ms",
+                getOpenCvLoadedMs(), getWarmUpDoneMs(), getCameraBoundMs(), getTimeToFirstFrameMs());
+    }
+
+    // One-line summary for logging
+    public String lifecycleSummary() {
+        return String.format(Locale.US,
+                "resume latency %d ms, last drain %d ms, drain timeouts %d, "
+                        + "frames rejected %d, open images %d, resources released %b",
+                getLastResumeLatencyMs(), getLastDrainMs(), getDrainTimeouts(),
+                getFramesRejected(), getOpenImages(), isResourcesReleased());
+    }
+
+    // One-line summary for logging
+    public String telemetrySummary() {
+        return String.format(Locale.US, "%.1f ms/frame, %.1f fps, %d frames",
+                getAverageFrameMs(), getAverageFps(), getFramesProcessed());
+    }
+}
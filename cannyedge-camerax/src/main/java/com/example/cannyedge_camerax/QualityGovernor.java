@@ -0,0 +1,197 @@
+package com.example.cannyedge_camerax;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * QualityGovernor - Keeps throughput steady by stepping through quality levels
+ * Inputs: frame latency / FPS telemetry (PipelineMetrics) and a ThermalSignal
+ * Output: the QualityLevel the pipeline should run at
+ *
+ * Rules (levels ordered best first, index 0 = best):
+ * - Thermal / power floor: the best level whose maxThermalSeverity allows the current thermal
+ *   state (battery saver or a low battery also rules out the best level); when it gets worse
+ *   the governor steps down to it at once
+ * - Overload: frames slower than DEGRADE_RATIO of the budget (or FPS well under target while
+ *   processing is a large share of the budget) for DEGRADE_HOLD_MS → one level down
+ * - Headroom: frames faster than UPGRADE_RATIO of the budget and the floor allows it
+ *   for the level's upgrade hold, at least MIN_DWELL_MS after the last change → one level up
+ * - Backoff: the budget of the current level can not predict the cost of the better one
+ *   (e.g. 4x the pixels after a resolution step). An upgrade undone by overload within
+ *   UPGRADE_PROBATION_MS doubles the hold for that level (up to MAX_UPGRADE_HOLD_MS);
+ *   an upgrade that lasts resets it to UPGRADE_HOLD_MS.
+ * The gap between the two ratios, the longer upgrade hold and the backoff are the hysteresis
+ * that keeps the governor from oscillating between two levels.
+ *
+ * Plain Java with explicit timestamps, so it runs on a desktop JVM with ManualThermalSignal.
+ * Not thread-safe: evaluate from one thread (the analysis thread).
+ */
+public class QualityGovernor {
+
+    // ============ Hysteresis parameters ============
+    private static final long EVALUATION_INTERVAL_MS = 1000; // Evaluate at most once per second
+    private static final double DEGRADE_RATIO = 0.9;         // Overloaded above 90% of the budget
+    private static final double UPGRADE_RATIO = 0.5;         // Headroom below 50% of the budget
+    private static final double MIN_FPS_RATIO = 0.8;         // Overloaded below 80% of target FPS
+    private static final long DEGRADE_HOLD_MS = 3000;        // Overload must last this long
+    private static final long UPGRADE_HOLD_MS = 15000;       // Headroom must last this long
+    private static final long MIN_DWELL_MS = 10000;          // Minimum time between upgrades
+
+    // ============ Upgrade backoff ============
+    private static final long UPGRADE_PROBATION_MS = 30000;  // Overload this soon undoes an upgrade
+    private static final long MAX_UPGRADE_HOLD_MS = 240000;  // Longest backed-off upgrade hold
+
+    // ============ Power thresholds ============
+    private static final int LOW_BATTERY_PERCENT = 15;
+
+    private static final long NEVER = -1;
+
+    private final List<QualityLevel> levels;
+    private final ThermalSignal thermalSignal;
+
+    private int levelIndex = 0;
+    private long lastEvaluationMs = NEVER;
+    private long lastChangeMs = NEVER;
+    private long overloadSinceMs = NEVER;
+    private long headroomSinceMs = NEVER;
+    private boolean lastChangeWasUpgrade = false;
+    // Headroom needed before upgrading to level i (UPGRADE_HOLD_MS unless backed off)
+    private final long[] upgradeHoldMs;
+
+    /**
+     * @param levels Quality levels, best first (at least one)
+     * @param thermalSignal Thermal / power state provider
+     */
+    public QualityGovernor(List<QualityLevel> levels, ThermalSignal thermalSignal) {
+        if (levels.isEmpty()) {
+            throw new IllegalArgumentException("At least one quality level is required");
+        }
+        this.levels = Collections.unmodifiableList(new ArrayList<>(levels));
+        this.thermalSignal = thermalSignal;
+        upgradeHoldMs = new long[levels.size()];
+        Arrays.fill(upgradeHoldMs, UPGRADE_HOLD_MS);
+    }
+
+    public QualityLevel getLevel() {
+        return levels.get(levelIndex);
+    }
+
+    public int getLevelIndex() {
+        return levelIndex;
+    }
+
+    public List<QualityLevel> getLevels() {
+        return levels;
+    }
+
+    // Headroom time currently required before upgrading to the given level
+    public long getUpgradeHoldMs(int levelIndex) {
+        return upgradeHoldMs[levelIndex];
+    }
+
+    /**
+     * Update the level from the latest telemetry
+     *
+     * @param nowMs Current time (any monotonic millisecond clock)
+     * @param averageFrameMs Smoothed processing time per frame (<= 0 = no data yet)
+     * @param averageFps Smoothed processed frames per second (<= 0 = no data yet)
+     * @return true if the level changed
+     */
+    public boolean evaluate(long nowMs, double averageFrameMs, double averageFps) {
+        if (lastEvaluationMs != NEVER && nowMs - lastEvaluationMs < EVALUATION_INTERVAL_MS) {
+            return false;
+        }
+        lastEvaluationMs = nowMs;
+
+        // Step 1: Thermal / power floor wins immediately
+        int floor = thermalFloor();
+        if (floor > levelIndex) {
+            return changeLevel(floor, nowMs);
+        }
+        if (averageFrameMs <= 0) {
+            return false;
+        }
+
+        // An upgrade that held through its probation was right: no more backoff for this level
+        if (lastChangeWasUpgrade && nowMs - lastChangeMs >= UPGRADE_PROBATION_MS) {
+            upgradeHoldMs[levelIndex] = UPGRADE_HOLD_MS;
+            lastChangeWasUpgrade = false;
+        }
+
+        // Step 2: Sustained overload → one level down
+        QualityLevel level = getLevel();
+        double budgetMs = level.getFrameBudgetMs();
+        // Low FPS only counts when processing takes a real share of the budget
+        // (otherwise the camera itself is slow, e.g. long exposures in low light)
+        boolean overloaded = averageFrameMs > budgetMs * DEGRADE_RATIO
+                || (averageFps > 0 && averageFps < level.getTargetFps() * MIN_FPS_RATIO
+                        && averageFrameMs > budgetMs * UPGRADE_RATIO);
+        if (overloaded) {
+            headroomSinceMs = NEVER;
+            if (overloadSinceMs == NEVER) {
+                overloadSinceMs = nowMs;
+            }
+            if (nowMs - overloadSinceMs >= DEGRADE_HOLD_MS && levelIndex < levels.size() - 1) {
+                // Overloaded right after an upgrade: wait longer before trying this level again
+                if (lastChangeWasUpgrade) {
+                    upgradeHoldMs[levelIndex] = Math.min(upgradeHoldMs[levelIndex] * 2, MAX_UPGRADE_HOLD_MS);
+                }
+                return changeLevel(levelIndex + 1, nowMs);
+            }
+            return false;
+        }
+        overloadSinceMs = NEVER;
+
+        // Step 3: Sustained headroom → one level up (if the floor allows it)
+        boolean headroom = averageFrameMs < budgetMs * UPGRADE_RATIO
+                && levelIndex - 1 >= floor;
+        if (!headroom) {
+            headroomSinceMs = NEVER;
+            return false;
+        }
+        if (headroomSinceMs == NEVER) {
+            headroomSinceMs = nowMs;
+        }
+        if (nowMs - headroomSinceMs >= upgradeHoldMs[levelIndex - 1]
+                && (lastChangeMs == NEVER || nowMs - lastChangeMs >= MIN_DWELL_MS)) {
+            return changeLevel(levelIndex - 1, nowMs);
+        }
+        return false;
+    }
+
+    // Best level index the current thermal / power state allows
+    private int thermalFloor() {
+        // First level that may run this hot; hotter than any level allows → the last one
+        int lastIndex = levels.size() - 1;
+        int severity = thermalSignal.getThermalSeverity();
+        int floor = lastIndex;
+        for (int i = 0; i < lastIndex; i++) {
+            if (severity <= levels.get(i).getMaxThermalSeverity()) {
+                floor = i;
+                break;
+            }
+        }
+
+        // Battery saver or a low, discharging battery: skip the best level
+        int battery = thermalSignal.getBatteryPercent();
+        if (thermalSignal.isPowerSaveMode()
+                || (battery >= 0 && battery <= LOW_BATTERY_PERCENT && !thermalSignal.isCharging())) {
+            floor = Math.max(floor, Math.min(1, lastIndex));
+        }
+        return floor;
+    }
+
+    private boolean changeLevel(int newIndex, long nowMs) {
+        if (newIndex == levelIndex) {
+            return false;
+        }
+        lastChangeWasUpgrade = newIndex < levelIndex;
+        levelIndex = newIndex;
+        lastChangeMs = nowMs;
+        overloadSinceMs = NEVER;
+        headroomSinceMs = NEVER;
+        return true;
+    }
+}
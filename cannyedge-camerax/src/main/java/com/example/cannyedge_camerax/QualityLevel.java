@@ -0,0 +1,84 @@
+package com.example.cannyedge_camerax;
+
+/**
+ * QualityLevel - One step of the quality ladder used by QualityGovernor
+ * Each level fixes the analysis resolution, which optional stages run, the target frame rate
+ * and the hottest thermal state it may run at.
+ * Levels are immutable; the governor moves between them, best level first.
+ */
+public final class QualityLevel {
+
+    private final String name;
+    private final int analysisWidth;      // Requested ImageAnalysis resolution (sensor orientation)
+    private final int analysisHeight;
+    private final boolean contoursEnabled;
+    private final boolean trackingEnabled;
+    private final int targetFps;
+    private final int maxThermalSeverity; // Hottest ThermalSignal.SEVERITY_* this level may run at
+
+    /**
+     * @param name Short name for logs
+     * @param analysisWidth Requested ImageAnalysis width (sensor orientation)
+     * @param analysisHeight Requested ImageAnalysis height
+     * @param contoursEnabled Run the contour stage
+     * @param trackingEnabled Run the feature tracking stage
+     * @param targetFps Frames per second to process
+     * @param maxThermalSeverity Hottest thermal severity (ThermalSignal.SEVERITY_*) this level may run at
+     */
+    public QualityLevel(String name, int analysisWidth, int analysisHeight,
+                        boolean contoursEnabled, boolean trackingEnabled, int targetFps,
+                        int maxThermalSeverity) {
+        this.name = name;
+        this.analysisWidth = analysisWidth;
+        this.analysisHeight = analysisHeight;
+        this.contoursEnabled = contoursEnabled;
+        this.trackingEnabled = trackingEnabled;
+        this.targetFps = targetFps;
+        this.maxThermalSeverity = maxThermalSeverity;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAnalysisWidth() {
+        return analysisWidth;
+    }
+
+    public int getAnalysisHeight() {
+        return analysisHeight;
+    }
+
+    public boolean isContoursEnabled() {
+        return contoursEnabled;
+    }
+
+    public boolean isTrackingEnabled() {
+        return trackingEnabled;
+    }
+
+    public int getTargetFps() {
+        return targetFps;
+    }
+
+    public int getMaxThermalSeverity() {
+        return maxThermalSeverity;
+    }
+
+    // Time available per frame at the target frame rate
+    public double getFrameBudgetMs() {
+        return 1000.0 / targetFps;
+    }
+
+    // True if switching between the two levels needs a different camera resolution
+    public boolean hasSameResolution(QualityLevel other) {
+        return analysisWidth == other.analysisWidth && analysisHeight == other.analysisHeight;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + analysisWidth + "x" + analysisHeight + ", " + targetFps + " fps"
+                + (contoursEnabled ? ", contours" : "")
+                + (trackingEnabled ? ", tracking" : "") + ")";
+    }
+}
@@ -0,0 +1,462 @@
+package com.example.cannyedge_camerax;
+
+import androidx.camera.core.ImageProxy;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * YuvToArgbConverter - Direct YUV_420_888 → ARGB_8888 conversion for display
+ * Replaces the two-step path ImageProxy (YUV) → Mat (BGR) → Mat (RGBA) → Bitmap
+ * with a single pass that writes packed ARGB pixels straight into a reused int[] buffer.
+ *
+ * - Coefficients: BT.601 video range (same as Imgproc.COLOR_YUV2BGR_NV21), 16.16 fixed point lookup tables
+ * - Strides: honours row stride and pixel stride of every plane (planar I420 and semi-planar NV12/NV21)
+ * - Rotation: pixels are written already rotated (0 / 90 / 180 / 270), so no extra rotate pass is needed;
+ *   90 / 270 are converted in small tiles so the column-order writes stay in cache
+ * - Row ranges: convertRows() works on a band of source rows, so one frame can be split across cores
+ * - Overlay: an optional edge map (display orientation) is blended in while the pixels are written
+ *
+ * Not thread-safe across frames: call prepare() once per frame, then convert (optionally in parallel bands).
+ */
+public class YuvToArgbConverter {
+
+    // ============ Fixed-point lookup tables (16.16) ============
+    private static final int FIXED_SHIFT = 16;
+    private static final int FIXED_HALF = 1 << (FIXED_SHIFT - 1);
+
+    private static final int[] Y_TABLE = new int[256];   // 1.164 * (Y - 16), with rounding
+    private static final int[] R_V_TABLE = new int[256]; // 1.596 * (V - 128)
+    private static final int[] G_U_TABLE = new int[256]; // -0.391 * (U - 128)
+    private static final int[] G_V_TABLE = new int[256]; // -0.813 * (V - 128)
+    private static final int[] B_U_TABLE = new int[256]; // 2.018 * (U - 128)
+
+    // Clamp table: maps (value >> 16) + CLAMP_OFFSET to 0..255 without branches
+    private static final int CLAMP_OFFSET = 384;
+    private static final int[] CLAMP_TABLE = new int[1024];
+
+    // ============ Rotation tiles (90 / 270) ============
+    // A rotated source row is an output column, so writing row by row touches a new cache line
+    // per pixel. A tile of 16 source rows fills one 64-byte line of an output row at a time
+    // while its 16 source rows stay in cache.
+    private static final int TILE_ROWS = 16;
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            Y_TABLE[i] = (int) Math.round(1.164 * (i - 16) * (1 << FIXED_SHIFT)) + FIXED_HALF;
+            R_V_TABLE[i] = (int) Math.round(1.596 * (i - 128) * (1 << FIXED_SHIFT));
+            G_U_TABLE[i] = (int) Math.round(-0.391 * (i - 128) * (1 << FIXED_SHIFT));
+            G_V_TABLE[i] = (int) Math.round(-0.813 * (i - 128) * (1 << FIXED_SHIFT));
+            B_U_TABLE[i] = (int) Math.round(2.018 * (i - 128) * (1 << FIXED_SHIFT));
+        }
+        for (int i = 0; i < CLAMP_TABLE.length; i++) {
+            CLAMP_TABLE[i] = Math.max(0, Math.min(255, i - CLAMP_OFFSET));
+        }
+    }
+
+    // ============ Per-frame plane data (reused across frames) ============
+    private byte[] yBytes = new byte[0];
+    private byte[] uBytes = new byte[0];
+    private byte[] vBytes = new byte[0];
+    private int yRowStride;
+    private int uvRowStride;
+    private int uvPixelStride;
+
+    // ============ Frame geometry ============
+    private int width;
+    private int height;
+    private int rotation;
+
+    // ============ Band parallelism (reused every frame) ============
+    // The converting thread is the one permanent party; each band registers for one phase
+    private final Phaser bandsDone = new Phaser(1);
+    private BandTask[] bandTasks = new BandTask[0];
+
+    // ============ Optional edge overlay (see EdgeCompositor) ============
+    private byte[] overlayMask;
+    private int overlayColor;
+    private int overlayAlpha;
+
+    /**
+     * Copy the three planes of the frame into reused arrays and remember the frame geometry
+     * Must be called on the analyzer thread before any convert call for this frame
+     *
+     * @param imageProxy Input image from CameraX in YUV_420_888 format
+     * @param rotationDegrees Clockwise rotation applied to the output (0, 90, 180 or 270)
+     */
+    public void prepare(ImageProxy imageProxy, int rotationDegrees) {
+        ImageProxy.PlaneProxy[] planes = imageProxy.getPlanes();
+        prepare(planes[0].getBuffer(), planes[1].getBuffer(), planes[2].getBuffer(),
+                imageProxy.getWidth(), imageProxy.getHeight(),
+                planes[0].getRowStride(), planes[1].getRowStride(), planes[1].getPixelStride(),
+                rotationDegrees);
+    }
+
+    /**
+     * Same as prepare(ImageProxy, int) for raw planes (e.g. synthetic frames used for warm-up)
+     *
+     * @param yBuffer Y plane, pixel stride 1
+     * @param uBuffer U plane
+     * @param vBuffer V plane (same row and pixel stride as U)
+     * @param frameWidth Frame width in pixels
+     * @param frameHeight Frame height in pixels
+     * @param lumaRowStride Row stride of the Y plane
+     * @param chromaRowStride Row stride of the U and V planes
+     * @param chromaPixelStride Pixel stride of the U and V planes (1 = planar, 2 = semi-planar)
+     * @param rotationDegrees Clockwise rotation applied to the output (0, 90, 180 or 270)
+     */
+    public void prepare(ByteBuffer yBuffer, ByteBuffer uBuffer, ByteBuffer vBuffer,
+                        int frameWidth, int frameHeight,
+                        int lumaRowStride, int chromaRowStride, int chromaPixelStride,
+                        int rotationDegrees) {
+        width = frameWidth;
+        height = frameHeight;
+        rotation = rotationDegrees;
+
+        yRowStride = lumaRowStride;
+        uvRowStride = chromaRowStride;
+        uvPixelStride = chromaPixelStride;
+
+        yBytes = copyPlane(yBuffer, yBytes);
+        uBytes = copyPlane(uBuffer, uBytes);
+        vBytes = copyPlane(vBuffer, vBytes);
+    }
+
+    // Bulk-copy a plane into a reused array (grown only when the frame gets bigger)
+    private static byte[] copyPlane(ByteBuffer buffer, byte[] target) {
+        int size = buffer.remaining();
+        if (target.length < size) {
+            target = new byte[size];
+        }
+        buffer.duplicate().get(target, 0, size);
+        return target;
+    }
+
+    // ============ Output geometry (after rotation) ============
+    public int getOutputWidth() {
+        return (rotation == 90 || rotation == 270) ? height : width;
+    }
+
+    public int getOutputHeight() {
+        return (rotation == 90 || rotation == 270) ? width : height;
+    }
+
+    // ============ Luma access (grayscale without color conversion) ============
+    public byte[] getLumaBytes() {
+        return yBytes;
+    }
+
+    public int getLumaRowStride() {
+        return yRowStride;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Blend an edge map over the color image during the following convert calls
+     * The mask is indexed like the output buffer (display orientation, non-zero = edge)
+     *
+     * @param mask Edge map, at least getOutputWidth() * getOutputHeight() bytes
+     * @param color Opaque ARGB edge color
+     * @param alpha Edge opacity, 0..EdgeCompositor.ALPHA_OPAQUE
+     */
+    public void setOverlay(byte[] mask, int color, int alpha) {
+        overlayMask = mask;
+        overlayColor = color;
+        overlayAlpha = alpha;
+    }
+
+    // Back to plain color conversion
+    public void clearOverlay() {
+        overlayMask = null;
+    }
+
+    /**
+     * Convert the whole prepared frame on the calling thread
+     *
+     * @param out Output ARGB buffer, at least getOutputWidth() * getOutputHeight() long
+     */
+    public void convert(int[] out) {
+        convertRows(out, 0, height);
+    }
+
+    /**
+     * Convert the prepared frame split into horizontal bands of source rows
+     * bands - 1 bands run on the executor, the last one runs on the calling thread
+     *
+     * @param out Output ARGB buffer, at least getOutputWidth() * getOutputHeight() long
+     * @param executor Worker pool for the extra bands
+     * @param bands Number of bands (1 = single-threaded)
+     */
+    public void convert(int[] out, ExecutorService executor, int bands) {
+        if (bands <= 1 || executor == null) {
+            convert(out);
+            return;
+        }
+
+        // Band tasks are created once and reused, so a frame allocates nothing
+        if (bandTasks.length < bands - 1) {
+            BandTask[] grown = Arrays.copyOf(bandTasks, bands - 1);
+            for (int band = bandTasks.length; band < grown.length; band++) {
+                grown[band] = new BandTask();
+            }
+            bandTasks = grown;
+        }
+
+        // Band height is kept even so every band starts on a chroma row
+        int bandRows = ((height + bands - 1) / bands + 1) & ~1;
+        bandsDone.bulkRegister(bands - 1);
+
+        int rowStart = 0;
+        for (int band = 0; band < bands - 1; band++) {
+            BandTask task = bandTasks[band];
+            task.out = out;
+            task.rowStart = Math.min(rowStart, height);
+            task.rowEnd = Math.min(rowStart + bandRows, height);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run(); // Pool already shut down: convert the band here
+            }
+            rowStart += bandRows;
+        }
+
+        // Last band on the calling thread, then wait for the others
+        convertRows(out, Math.min(rowStart, height), height);
+        bandsDone.arriveAndAwaitAdvance();
+    }
+
+    // One band of a convert(out, executor, bands) call; fields are set before each submit
+    private final class BandTask implements Runnable {
+        int[] out;
+        int rowStart;
+        int rowEnd;
+
+        @Override
+        public void run() {
+            try {
+                convertRows(out, rowStart, rowEnd);
+            } finally {
+                out = null;
+                bandsDone.arriveAndDeregister();
+            }
+        }
+    }
+
+    /**
+     * Convert source rows [rowStart, rowEnd) into the output buffer
+     * Safe to call concurrently for disjoint row ranges of the same frame
+     *
+     * @param out Output ARGB buffer
+     * @param rowStart First source row (inclusive)
+     * @param rowEnd Last source row (exclusive)
+     */
+    public void convertRows(int[] out, int rowStart, int rowEnd) {
+        final int w = width;
+        final int h = height;
+
+        // Destination index step between two neighbouring source pixels of the same row
+        final int step;
+        switch (rotation) {
+            case 90:
+                step = h;
+                break;
+            case 180:
+                step = -1;
+                break;
+            case 270:
+                step = -h;
+                break;
+            default:
+                step = 1;
+                break;
+        }
+
+        if (step == 1 || step == -1) {
+            // Rows map to rows: plain sequential writes
+            for (int y = rowStart; y < rowEnd; y++) {
+                convertSpan(out, y, 0, w, step);
+            }
+            return;
+        }
+
+        // Rows map to columns: tiles of TILE_ROWS source rows, each converted column pair by
+        // column pair, so every output row gets TILE_ROWS consecutive pixels at a time.
+        // Tiles start on an even row; a leftover odd first / last row is converted on its own.
+        int y = rowStart;
+        if ((y & 1) != 0 && y < rowEnd) {
+            convertSpan(out, y, 0, w, step);
+            y++;
+        }
+        int pairedEnd = y + ((rowEnd - y) & ~1);
+        for (; y < pairedEnd; y += TILE_ROWS) {
+            convertTile(out, y, Math.min(y + TILE_ROWS, pairedEnd), step);
+        }
+        if (pairedEnd < rowEnd) {
+            convertSpan(out, pairedEnd, 0, w, step);
+        }
+    }
+
+    /**
+     * Convert source rows [rowStart, rowEnd) of a 90 / 270 frame in 2 x 2 blocks
+     * The four pixels of a block share one chroma sample and land on two pairs of
+     * neighbouring output pixels in two consecutive output rows
+     *
+     * @param out Output ARGB buffer
+     * @param rowStart First source row (inclusive, even)
+     * @param rowEnd Last source row (exclusive, rowEnd - rowStart even)
+     * @param step Destination index step between neighbouring source columns (+h or -h)
+     */
+    private void convertTile(int[] out, int rowStart, int rowEnd, int step) {
+        final byte[] yData = yBytes;
+        final byte[] uData = uBytes;
+        final byte[] vData = vBytes;
+        final byte[] mask = overlayMask;
+        final int w = width;
+        final int pairEnd = w & ~1;
+        final int lumaStride = yRowStride;
+        // Destination index step between source rows y and y + 1
+        final int rowStep = rotation == 90 ? -1 : 1;
+        final int tileDestination = rowDestination(rowStart, w, height);
+
+        for (int x = 0; x < pairEnd; x += 2) {
+            int dst = tileDestination + x * step;
+            int yIndex = rowStart * lumaStride + x;
+            int uvIndex = (rowStart >> 1) * uvRowStride + (x >> 1) * uvPixelStride;
+
+            for (int y = rowStart; y < rowEnd; y += 2) {
+                int u = uData[uvIndex] & 0xFF;
+                int v = vData[uvIndex] & 0xFF;
+                int rOffset = R_V_TABLE[v];
+                int gOffset = G_U_TABLE[u] + G_V_TABLE[v];
+                int bOffset = B_U_TABLE[u];
+
+                int y00 = Y_TABLE[yData[yIndex] & 0xFF];
+                int y01 = Y_TABLE[yData[yIndex + 1] & 0xFF];
+                int y10 = Y_TABLE[yData[yIndex + lumaStride] & 0xFF];
+                int y11 = Y_TABLE[yData[yIndex + lumaStride + 1] & 0xFF];
+
+                int next = dst + rowStep;
+                out[dst] = shade(pack(y00 + rOffset, y00 + gOffset, y00 + bOffset), mask, dst);
+                out[next] = shade(pack(y10 + rOffset, y10 + gOffset, y10 + bOffset), mask, next);
+                out[dst + step] = shade(pack(y01 + rOffset, y01 + gOffset, y01 + bOffset), mask, dst + step);
+                out[next + step] = shade(pack(y11 + rOffset, y11 + gOffset, y11 + bOffset), mask, next + step);
+
+                dst = next + rowStep;
+                yIndex += lumaStride << 1;
+                uvIndex += uvRowStride;
+            }
+        }
+
+        // Odd width: last column uses its own chroma sample
+        if (pairEnd < w) {
+            for (int y = rowStart; y < rowEnd; y++) {
+                convertSpan(out, y, pairEnd, w, step);
+            }
+        }
+    }
+
+    /**
+     * Convert source columns [xStart, xEnd) of one source row
+     *
+     * @param out Output ARGB buffer
+     * @param y Source row
+     * @param xStart First source column (inclusive, even so it starts on a chroma sample)
+     * @param xEnd Last source column (exclusive)
+     * @param step Destination index step between neighbouring source pixels
+     */
+    private void convertSpan(int[] out, int y, int xStart, int xEnd, int step) {
+        final byte[] yData = yBytes;
+        final byte[] uData = uBytes;
+        final byte[] vData = vBytes;
+        final byte[] mask = overlayMask;
+        final int pairEnd = xStart + ((xEnd - xStart) & ~1);
+
+        int yIndex = y * yRowStride;
+        int uvRow = (y >> 1) * uvRowStride;
+        int dst = rowDestination(y, width, height) + xStart * step;
+
+        // Two luma samples share one chroma sample
+        int x = xStart;
+        for (; x < pairEnd; x += 2) {
+            int uvIndex = uvRow + (x >> 1) * uvPixelStride;
+            int u = uData[uvIndex] & 0xFF;
+            int v = vData[uvIndex] & 0xFF;
+            int rOffset = R_V_TABLE[v];
+            int gOffset = G_U_TABLE[u] + G_V_TABLE[v];
+            int bOffset = B_U_TABLE[u];
+
+            int y0 = Y_TABLE[yData[yIndex + x] & 0xFF];
+            int y1 = Y_TABLE[yData[yIndex + x + 1] & 0xFF];
+
+            if (mask == null) {
+                out[dst] = pack(y0 + rOffset, y0 + gOffset, y0 + bOffset);
+                dst += step;
+                out[dst] = pack(y1 + rOffset, y1 + gOffset, y1 + bOffset);
+                dst += step;
+            } else {
+                out[dst] = overlay(pack(y0 + rOffset, y0 + gOffset, y0 + bOffset), mask[dst]);
+                dst += step;
+                out[dst] = overlay(pack(y1 + rOffset, y1 + gOffset, y1 + bOffset), mask[dst]);
+                dst += step;
+            }
+        }
+
+        // Odd width: last column uses its own chroma sample
+        if (x < xEnd) {
+            int uvIndex = uvRow + (x >> 1) * uvPixelStride;
+            int u = uData[uvIndex] & 0xFF;
+            int v = vData[uvIndex] & 0xFF;
+            int y0 = Y_TABLE[yData[yIndex + x] & 0xFF];
+            int pixel = pack(y0 + R_V_TABLE[v],
+                    y0 + G_U_TABLE[u] + G_V_TABLE[v],
+                    y0 + B_U_TABLE[u]);
+            out[dst] = mask == null ? pixel : overlay(pixel, mask[dst]);
+        }
+    }
+
+    // Destination index of source pixel (0, y) for the current rotation
+    private int rowDestination(int y, int w, int h) {
+        switch (rotation) {
+            case 90:
+                return h - 1 - y;                 // column h-1-y, row 0
+            case 180:
+                return (h - 1 - y) * w + (w - 1); // row h-1-y, column w-1
+            case 270:
+                return (w - 1) * h + y;           // column y, row w-1
+            default:
+                return y * w;
+        }
+    }
+
+    // Composite the edge color over one pixel where the mask is set
+    private int overlay(int pixel, byte maskValue) {
+        return maskValue == 0 ? pixel : EdgeCompositor.blend(pixel, overlayColor, overlayAlpha);
+    }
+
+    // Same as overlay() for an optional mask (null = no overlay)
+    private int shade(int pixel, byte[] mask, int index) {
+        return mask == null ? pixel : overlay(pixel, mask[index]);
+    }
+
+    // Pack fixed-point R, G, B into an opaque ARGB_8888 pixel
+    private static int pack(int r, int g, int b) {
+        return 0xFF000000
+                | (CLAMP_TABLE[(r >> FIXED_SHIFT) + CLAMP_OFFSET] << 16)
+                | (CLAMP_TABLE[(g >> FIXED_SHIFT) + CLAMP_OFFSET] << 8)
+                | CLAMP_TABLE[(b >> FIXED_SHIFT) + CLAMP_OFFSET];
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.cannyedge_camerax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * ContourStageTest - Outer border following on synthetic edge maps
+ * Outlines are 1-pixel rectangles and filled disks, like closed Canny edges.
+ */
+public class ContourStageTest {
+
+    private static final byte EDGE = (byte) 255;
+
+    private final ContourStage stage = new ContourStage(100.0, 40.0, 0.02);
+
+    // Draw a 1-pixel rectangle outline, right / bottom exclusive
+    private static void outline(byte[] edges, int width, int left, int top, int right, int bottom) {
+        for (int x = left; x < right; x++) {
+            edges[top * width + x] = EDGE;
+            edges[(bottom - 1) * width + x] = EDGE;
+        }
+        for (int y = top; y < bottom; y++) {
+            edges[y * width + left] = EDGE;
+            edges[y * width + right - 1] = EDGE;
+        }
+    }
+
+    private static void assertBox(ContourSet contours, int index, int left, int top, int right, int bottom) {
+        assertEquals(left, contours.getLeft(index));
+        assertEquals(top, contours.getTop(index));
+        assertEquals(right, contours.getRight(index));
+        assertEquals(bottom, contours.getBottom(index));
+    }
+
+    @Test
+    public void rectangleOutlineIsFourCorners() {
+        int width = 80;
+        int height = 60;
+        byte[] edges = new byte[width * height];
+        outline(edges, width, 10, 20, 50, 50);
+
+        ContourSet contours = stage.process(edges, width, height);
+        assertEquals(1, contours.size());
+        assertBox(contours, 0, 10, 20, 50, 50);
+        // Straight runs are compressed to their end points, so outline and polygon are the corners
+        assertEquals(4, contours.getPointCount(0));
+        assertEquals(4, contours.getPolygonCount(0));
+        assertEquals(39 * 29, contours.getArea(0), 0.01);
+        assertEquals(2 * (39 + 29), contours.getPerimeter(0), 0.01);
+    }
+
+    @Test
+    public void diamondOutlineKeepsEveryCorner() {
+        int width = 60;
+        int height = 60;
+        byte[] edges = new byte[width * height];
+        for (int i = 0; i <= 20; i++) {
+            edges[(10 + i) * width + 30 + i] = EDGE;
+            edges[(10 + i) * width + 30 - i] = EDGE;
+            edges[(50 - i) * width + 30 + i] = EDGE;
+            edges[(50 - i) * width + 30 - i] = EDGE;
+        }
+
+        ContourSet contours = stage.process(edges, width, height);
+        assertEquals(1, contours.size());
+        assertBox(contours, 0, 10, 10, 51, 51);
+        // Including the corner just before the tracer gets back to its start
+        assertEquals(4, contours.getPointCount(0));
+        assertEquals(2 * 20 * 20, contours.getArea(0), 0.01);
+    }
+
+    @Test
+    public void onlyOutermostBordersAreReported() {
+        int width = 120;
+        int height = 100;
+        byte[] edges = new byte[width * height];
+        outline(edges, width, 5, 5, 70, 90);
+        outline(edges, width, 20, 20, 50, 60);  // Inside the first one's hole
+        outline(edges, width, 80, 10, 115, 40); // Separate
+
+        ContourSet contours = stage.process(edges, width, height);
+        assertEquals(2, contours.size());
+        assertBox(contours, 0, 5, 5, 70, 90);
+        assertBox(contours, 1, 80, 10, 115, 40);
+    }
+
+    @Test
+    public void smallShapesAndLinesAreFiltered() {
+        int width = 64;
+        int height = 64;
+        byte[] edges = new byte[width * height];
+        outline(edges, width, 2, 2, 8, 8);           // Area below the minimum
+        edges[40 * width + 40] = EDGE;               // Isolated pixel
+        for (int x = 10; x < 60; x++) {
+            edges[50 * width + x] = EDGE;            // Long line: perimeter, but no area
+        }
+
+        assertEquals(0, stage.process(edges, width, height).size());
+    }
+
+    @Test
+    public void shapesTouchingThePictureEdgeAreTraced() {
+        int width = 40;
+        int height = 30;
+        byte[] edges = new byte[width * height];
+        outline(edges, width, 0, 0, width, height);
+
+        ContourSet contours = stage.process(edges, width, height);
+        assertEquals(1, contours.size());
+        assertBox(contours, 0, 0, 0, width, height);
+    }
+
+    @Test
+    public void filledDiskAreaIsClose() {
+        int width = 101;
+        int height = 91;
+        int radius = 30;
+        byte[] edges = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int dx = x - 50;
+                int dy = y - 45;
+                if (dx * dx + dy * dy <= radius * radius) {
+                    edges[y * width + x] = EDGE;
+                }
+            }
+        }
+
+        ContourSet contours = stage.process(edges, width, height);
+        assertEquals(1, contours.size());
+        assertBox(contours, 0, 20, 15, 81, 76);
+        // Polygon through the boundary pixel centers
+        double expected = Math.PI * (radius - 0.5) * (radius - 0.5);
+        assertEquals(expected, contours.getArea(0), expected * 0.03);
+        assertTrue(contours.getPolygonCount(0) >= 6);
+    }
+
+    @Test
+    public void buffersFollowFrameSizeChanges() {
+        byte[] large = new byte[100 * 80];
+        outline(large, 100, 10, 10, 90, 70);
+        assertEquals(1, stage.process(large, 100, 80).size());
+
+        byte[] small = new byte[50 * 40];
+        outline(small, 50, 5, 5, 45, 35);
+        ContourSet contours = stage.process(small, 50, 40);
+        assertEquals(1, contours.size());
+        assertBox(contours, 0, 5, 5, 45, 35);
+
+        // Same size again: the label buffer is refilled, not left over from the last frame
+        assertEquals(0, stage.process(new byte[50 * 40], 50, 40).size());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.cannyedge_camerax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * FrameSchedulerTest - Processed frame rates for a 30 fps camera
+ */
+public class FrameSchedulerTest {
+
+    private static final long CAMERA_FRAME_NANOS = 1_000_000_000L / 30;
+
+    // Frames processed out of 300 (10 s of camera frames), optionally with timing jitter
+    private static int processedOf300(int targetFps, long jitterNanos) {
+        FrameScheduler scheduler = new FrameScheduler();
+        int processed = 0;
+        for (int frame = 0; frame < 300; frame++) {
+            long jitter = (frame % 2 == 0) ? jitterNanos : -jitterNanos;
+            if (scheduler.isDue(frame * CAMERA_FRAME_NANOS + jitter, targetFps)) {
+                processed++;
+            }
+        }
+        return processed;
+    }
+
+    @Test
+    public void targetRatesBelowCameraRateAreMet() {
+        assertEquals(300, processedOf300(30, 0));
+        assertEquals(240, processedOf300(24, 0), 1);
+        assertEquals(150, processedOf300(15, 0), 1);
+        assertEquals(100, processedOf300(10, 0), 1);
+    }
+
+    @Test
+    public void cameraJitterDoesNotDropFrames() {
+        assertEquals(300, processedOf300(30, 2_000_000));
+        assertEquals(240, processedOf300(24, 2_000_000), 1);
+    }
+
+    @Test
+    public void scheduleRestartsAfterGap() {
+        FrameScheduler scheduler = new FrameScheduler();
+        assertTrue(scheduler.isDue(0, 30));
+
+        // Paused for a second: the next frame is processed, and the rate does not burst to catch up
+        long resume = 1_000_000_000L;
+        assertTrue(scheduler.isDue(resume, 15));
+        int processed = 0;
+        for (int frame = 1; frame <= 30; frame++) {
+            if (scheduler.isDue(resume + frame * CAMERA_FRAME_NANOS, 15)) {
+                processed++;
+            }
+        }
+        assertEquals(15, processed);
+    }
+
+    @Test
+    public void newTimestampBaseRestartsSchedule() {
+        FrameScheduler scheduler = new FrameScheduler();
+        assertTrue(scheduler.isDue(5_000_000_000L, 30));
+
+        // Camera rebound with an earlier timestamp base: frames must not wait for the old grid
+        assertTrue(scheduler.isDue(1_000_000L, 30));
+        assertTrue(scheduler.isDue(1_000_000L + CAMERA_FRAME_NANOS, 30));
+    }
+}
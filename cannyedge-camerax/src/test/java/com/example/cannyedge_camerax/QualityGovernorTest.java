@@ -0,0 +1,236 @@
+package com.example.cannyedge_camerax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * QualityGovernorTest - Governor rules with a ManualThermalSignal and simulated time
+ * The flapping scenarios run a simulated 30 fps camera (keep-only-latest delivery) through
+ * FrameScheduler, PipelineMetrics and the governor, like the CameraX analyzer does.
+ */
+public class QualityGovernorTest {
+
+    // Same ladder as MainActivity
+    private static final List<QualityLevel> LEVELS = Arrays.asList(
+            new QualityLevel("full", 640, 480, true, true, 30, ThermalSignal.SEVERITY_LIGHT),
+            new QualityLevel("reduced", 640, 480, true, false, 24, ThermalSignal.SEVERITY_MODERATE),
+            new QualityLevel("low", 320, 240, true, false, 15, ThermalSignal.SEVERITY_SEVERE),
+            new QualityLevel("minimal", 320, 240, false, false, 10, ThermalSignal.SEVERITY_SHUTDOWN)
+    );
+
+    // Telemetry well inside / far outside the full level's 33 ms budget
+    private static final double FAST_MS = 5.0;
+    private static final double SLOW_MS = 40.0;
+
+    // ============ Simulated camera ============
+    private static final long CAMERA_FRAME_NANOS = 1_000_000_000L / 30;
+    private static final long REBIND_NANOS = 300_000_000L; // No frames while the camera rebinds
+    private static final long SIMULATION_START_NANOS = 1_000_000_000L;
+
+    private ManualThermalSignal signal;
+    private QualityGovernor governor;
+
+    @Before
+    public void setUp() {
+        signal = new ManualThermalSignal();
+        governor = new QualityGovernor(LEVELS, signal);
+    }
+
+    @Test
+    public void thermalFloorAppliesImmediately() {
+        signal.setThermalSeverity(ThermalSignal.SEVERITY_MODERATE);
+        assertTrue(governor.evaluate(0, FAST_MS, 30));
+        assertEquals(1, governor.getLevelIndex());
+
+        signal.setThermalSeverity(ThermalSignal.SEVERITY_CRITICAL);
+        assertTrue(governor.evaluate(1000, FAST_MS, 30));
+        assertEquals(3, governor.getLevelIndex());
+    }
+
+    @Test
+    public void powerSaveAndLowBatteryRuleOutBestLevel() {
+        signal.setPowerSaveMode(true);
+        assertTrue(governor.evaluate(0, FAST_MS, 30));
+        assertEquals(1, governor.getLevelIndex());
+
+        QualityGovernor lowBattery = new QualityGovernor(LEVELS, signal);
+        signal.setPowerSaveMode(false);
+        signal.setBattery(10, false);
+        assertTrue(lowBattery.evaluate(0, FAST_MS, 30));
+        assertEquals(1, lowBattery.getLevelIndex());
+
+        // Charging: the best level is fine again (the governor itself steps back up slowly)
+        QualityGovernor charging = new QualityGovernor(LEVELS, signal);
+        signal.setBattery(10, true);
+        assertFalse(charging.evaluate(0, FAST_MS, 30));
+        assertEquals(0, charging.getLevelIndex());
+    }
+
+    @Test
+    public void thermalFloorFollowsLevelLimitsOfAnyLadder() {
+        List<QualityLevel> twoLevels = Arrays.asList(
+                new QualityLevel("high", 640, 480, true, true, 30, ThermalSignal.SEVERITY_SEVERE),
+                new QualityLevel("low", 320, 240, false, false, 15, ThermalSignal.SEVERITY_SHUTDOWN));
+        QualityGovernor small = new QualityGovernor(twoLevels, signal);
+
+        // MODERATE is within the first level's limit
+        signal.setThermalSeverity(ThermalSignal.SEVERITY_MODERATE);
+        assertFalse(small.evaluate(0, FAST_MS, 30));
+        assertEquals(0, small.getLevelIndex());
+
+        // Hotter than every level allows: the last level, never past the end of the ladder
+        signal.setThermalSeverity(ThermalSignal.SEVERITY_SHUTDOWN + 1);
+        assertTrue(small.evaluate(1000, FAST_MS, 30));
+        assertEquals(1, small.getLevelIndex());
+
+        QualityGovernor single = new QualityGovernor(twoLevels.subList(0, 1), signal);
+        signal.setPowerSaveMode(true);
+        assertFalse(single.evaluate(0, FAST_MS, 30));
+        assertEquals(0, single.getLevelIndex());
+    }
+
+    @Test
+    public void stepsDownOnlyAfterSustainedOverload() {
+        for (long t = 0; t < 3000; t += 1000) {
+            assertFalse("t=" + t, governor.evaluate(t, SLOW_MS, 25));
+        }
+        assertTrue(governor.evaluate(3000, SLOW_MS, 25));
+        assertEquals(1, governor.getLevelIndex());
+    }
+
+    @Test
+    public void shortOverloadDoesNotStepDown() {
+        governor.evaluate(0, SLOW_MS, 25);
+        governor.evaluate(1000, SLOW_MS, 25);
+        governor.evaluate(2000, FAST_MS, 30); // Recovered: the overload timer starts over
+        governor.evaluate(3000, SLOW_MS, 25);
+        assertFalse(governor.evaluate(5000, SLOW_MS, 25));
+        assertEquals(0, governor.getLevelIndex());
+    }
+
+    @Test
+    public void stepsUpOnlyAfterHeadroomHoldAndDwell() {
+        stepDownOnce(); // Level 1 at t = 3000
+
+        // Headroom from t = 4000: the 15 s hold ends at 19000 (the 10 s dwell at 13000)
+        for (long t = 4000; t < 19000; t += 1000) {
+            assertFalse("t=" + t, governor.evaluate(t, FAST_MS, 24));
+        }
+        assertTrue(governor.evaluate(19000, FAST_MS, 24));
+        assertEquals(0, governor.getLevelIndex());
+    }
+
+    @Test
+    public void revertedUpgradeBacksOff() {
+        stepDownOnce(); // Level 1 at t = 3000
+        for (long t = 4000; t <= 19000; t += 1000) {
+            governor.evaluate(t, FAST_MS, 24);
+        }
+        assertEquals(0, governor.getLevelIndex());
+
+        // The upgrade overloads straight away: back down, and the next try waits twice as long
+        for (long t = 20000; t <= 23000; t += 1000) {
+            governor.evaluate(t, SLOW_MS, 25);
+        }
+        assertEquals(1, governor.getLevelIndex());
+        assertEquals(30000, governor.getUpgradeHoldMs(0));
+
+        for (long t = 24000; t < 54000; t += 1000) {
+            assertFalse("t=" + t, governor.evaluate(t, FAST_MS, 24));
+        }
+        assertTrue(governor.evaluate(54000, FAST_MS, 24));
+        assertEquals(0, governor.getLevelIndex());
+
+        // This time the level holds through its probation: the backoff is forgotten
+        for (long t = 55000; t <= 90000; t += 1000) {
+            governor.evaluate(t, 20.0, 30);
+        }
+        assertEquals(0, governor.getLevelIndex());
+        assertEquals(15000, governor.getUpgradeHoldMs(0));
+    }
+
+    @Test
+    public void frameRateBelowTargetWithLightProcessingIsNotOverload() {
+        // Slow camera (e.g. long exposures): few frames, but each one is cheap
+        for (long t = 0; t <= 10000; t += 1000) {
+            assertFalse(governor.evaluate(t, 10.0, 12));
+        }
+        assertEquals(0, governor.getLevelIndex());
+    }
+
+    @Test
+    public void scheduledLevelsDoNotFlap() {
+        // Full is too slow for 30 fps, reduced fits its 24 fps budget, low is far cheaper.
+        // Reduced must run at 24 fps on a 30 fps camera and stay there.
+        double[] frameCostMs = {35, 28, 8, 5};
+        int changes = simulate(frameCostMs, 120);
+        assertEquals(1, changes);
+        assertEquals(1, governor.getLevelIndex());
+    }
+
+    @Test
+    public void costlyUpgradeBacksOffInsteadOfFlapping() {
+        // Reduced really is overloaded, low has plenty of headroom: every upgrade to reduced fails.
+        // Without backoff that is a pair of changes (and camera rebinds) every ~20 s.
+        double[] frameCostMs = {50, 45, 8, 5};
+        int changes = simulate(frameCostMs, 600);
+        assertTrue("changes: " + changes, changes <= 12);
+        assertEquals(2, governor.getLevelIndex());
+        assertTrue(governor.getUpgradeHoldMs(1) > 60000);
+    }
+
+    // Overload at level 0 until the governor steps down (t = 3000)
+    private void stepDownOnce() {
+        for (long t = 0; t <= 3000; t += 1000) {
+            governor.evaluate(t, SLOW_MS, 25);
+        }
+        assertEquals(1, governor.getLevelIndex());
+    }
+
+    /**
+     * Run the governor against a simulated 30 fps camera
+     * A frame that arrives while the analyzer is busy is dropped if a newer one arrives before
+     * the analyzer is free (keep-only-latest); a resolution change pauses frames for a rebind.
+     *
+     * @param frameCostMs Processing time per frame for each level
+     * @param seconds Simulated duration
+     * @return Number of level changes
+     */
+    private int simulate(double[] frameCostMs, int seconds) {
+        FrameScheduler scheduler = new FrameScheduler();
+        PipelineMetrics metrics = new PipelineMetrics();
+        long end = SIMULATION_START_NANOS + seconds * 1_000_000_000L;
+        long busyUntil = 0;
+        int changes = 0;
+
+        for (long timestamp = SIMULATION_START_NANOS; timestamp < end; timestamp += CAMERA_FRAME_NANOS) {
+            if (timestamp + CAMERA_FRAME_NANOS <= busyUntil) {
+                continue; // Replaced by a newer frame before the analyzer got to it
+            }
+            QualityLevel level = governor.getLevel();
+            if (!scheduler.isDue(timestamp, level.getTargetFps())) {
+                continue;
+            }
+
+            long costNanos = (long) (frameCostMs[governor.getLevelIndex()] * 1_000_000);
+            busyUntil = Math.max(timestamp, busyUntil) + costNanos;
+            metrics.recordFrame(costNanos, busyUntil);
+
+            if (governor.evaluate(busyUntil / 1_000_000,
+                    metrics.getAverageFrameMs(), metrics.getAverageFps())) {
+                changes++;
+                if (!governor.getLevel().hasSameResolution(level)) {
+                    busyUntil += REBIND_NANOS;
+                }
+            }
+        }
+        return changes;
+    }
+}
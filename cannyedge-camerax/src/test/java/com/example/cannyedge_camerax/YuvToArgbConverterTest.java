@@ -0,0 +1,161 @@
+package com.example.cannyedge_camerax;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * YuvToArgbConverterTest - Converter output against a floating-point BT.601 reference
+ * Frames are semi-planar with padded rows and odd sizes, so the paired-column / paired-row
+ * fast paths, the rotation tiles and the odd leftovers are all exercised.
+ */
+public class YuvToArgbConverterTest {
+
+    private static final int[] ROTATIONS = {0, 90, 180, 270};
+
+    // ============ Synthetic semi-planar (NV12-like) frame ============
+    private final int width = 45;
+    private final int height = 37;
+    private final int rowStride = width + 3;
+    private final byte[] luma = new byte[rowStride * height];
+    private final byte[] chroma = new byte[rowStride * ((height + 1) / 2) + 1];
+
+    public YuvToArgbConverterTest() {
+        Random random = new Random(42);
+        random.nextBytes(luma);
+        random.nextBytes(chroma);
+    }
+
+    private YuvToArgbConverter prepared(int rotation) {
+        YuvToArgbConverter converter = new YuvToArgbConverter();
+        ByteBuffer uPlane = ByteBuffer.wrap(chroma, 0, chroma.length - 1).slice();
+        ByteBuffer vPlane = ByteBuffer.wrap(chroma, 1, chroma.length - 1).slice();
+        converter.prepare(ByteBuffer.wrap(luma), uPlane, vPlane, width, height,
+                rowStride, rowStride, 2, rotation);
+        return converter;
+    }
+
+    private static int[] output(YuvToArgbConverter converter) {
+        return new int[converter.getOutputWidth() * converter.getOutputHeight()];
+    }
+
+    @Test
+    public void convertMatchesReferenceForEveryRotation() {
+        for (int rotation : ROTATIONS) {
+            YuvToArgbConverter converter = prepared(rotation);
+            int[] out = output(converter);
+            converter.convert(out);
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int pixel = out[destination(x, y, rotation)];
+                    int expected = reference(x, y);
+                    assertEquals("alpha at " + x + "," + y, 0xFF, pixel >>> 24);
+                    for (int shift = 0; shift <= 16; shift += 8) {
+                        int actualChannel = (pixel >> shift) & 0xFF;
+                        int expectedChannel = (expected >> shift) & 0xFF;
+                        assertEquals("rotation " + rotation + " at " + x + "," + y,
+                                expectedChannel, actualChannel, 1);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void splitRowRangesMatchWholeFrame() {
+        for (int rotation : ROTATIONS) {
+            YuvToArgbConverter converter = prepared(rotation);
+            int[] whole = output(converter);
+            converter.convert(whole);
+
+            // Odd range boundaries: tiles must handle unpaired first and last rows
+            int[] split = output(converter);
+            converter.convertRows(split, 0, 3);
+            converter.convertRows(split, 3, 20);
+            converter.convertRows(split, 20, height);
+            assertArrayEquals("rotation " + rotation, whole, split);
+        }
+    }
+
+    @Test
+    public void bandedConversionMatchesSingleThreaded() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int rotation : ROTATIONS) {
+                YuvToArgbConverter converter = prepared(rotation);
+                int[] single = output(converter);
+                converter.convert(single);
+
+                // Same converter over several frames: band tasks and the phaser are reused
+                for (int bands : new int[]{3, 2, 4, 3}) {
+                    int[] banded = output(converter);
+                    converter.convert(banded, executor, bands);
+                    assertArrayEquals("rotation " + rotation + ", " + bands + " bands", single, banded);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void overlayBlendsOnlyMaskedPixels() {
+        int color = 0xFF00FF00;
+        int alpha = 192;
+        for (int rotation : ROTATIONS) {
+            YuvToArgbConverter converter = prepared(rotation);
+            int[] plain = output(converter);
+            converter.convert(plain);
+
+            byte[] mask = new byte[plain.length];
+            for (int i = 0; i < mask.length; i += 3) {
+                mask[i] = (byte) 255;
+            }
+            int[] blended = output(converter);
+            converter.setOverlay(mask, color, alpha);
+            converter.convert(blended);
+
+            for (int i = 0; i < plain.length; i++) {
+                int expected = mask[i] != 0 ? EdgeCompositor.blend(plain[i], color, alpha) : plain[i];
+                assertEquals("rotation " + rotation + " at " + i, expected, blended[i]);
+            }
+        }
+    }
+
+    // Output index of source pixel (x, y) after a clockwise rotation
+    private int destination(int x, int y, int rotation) {
+        switch (rotation) {
+            case 90:
+                return x * height + (height - 1 - y);
+            case 180:
+                return (height - 1 - y) * width + (width - 1 - x);
+            case 270:
+                return (width - 1 - x) * height + y;
+            default:
+                return y * width + x;
+        }
+    }
+
+    // BT.601 video range in floating point, as an opaque ARGB pixel
+    private int reference(int x, int y) {
+        int uvIndex = (y / 2) * rowStride + (x / 2) * 2;
+        double luminance = 1.164 * ((luma[y * rowStride + x] & 0xFF) - 16);
+        int u = (chroma[uvIndex] & 0xFF) - 128;
+        int v = (chroma[uvIndex + 1] & 0xFF) - 128;
+        return 0xFF000000
+                | clamp(luminance + 1.596 * v) << 16
+                | clamp(luminance - 0.813 * v - 0.391 * u) << 8
+                | clamp(luminance + 2.018 * u);
+    }
+
+    private static int clamp(double value) {
+        return (int) Math.max(0, Math.min(255, Math.round(value)));
+    }
+}
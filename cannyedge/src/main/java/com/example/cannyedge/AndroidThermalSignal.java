@@ -0,0 +1,51 @@
+package com.example.cannyedge;
+
+import android.content.Context;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.PowerManager;
+
+/**
+ * AndroidThermalSignal - ThermalSignal backed by the platform services
+ * - Thermal severity: PowerManager.getCurrentThermalStatus() (Android 10+, otherwise none)
+ * - Power: PowerManager.isPowerSaveMode(), BatteryManager capacity and charging state
+ * All calls are cheap binder reads and are only made when the governor evaluates.
+ */
+public class AndroidThermalSignal implements ThermalSignal {
+
+    private final PowerManager powerManager;
+    private final BatteryManager batteryManager;
+
+    public AndroidThermalSignal(Context context) {
+        Context appContext = context.getApplicationContext();
+        powerManager = (PowerManager) appContext.getSystemService(Context.POWER_SERVICE);
+        batteryManager = (BatteryManager) appContext.getSystemService(Context.BATTERY_SERVICE);
+    }
+
+    @Override
+    public int getThermalSeverity() {
+        if (powerManager == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            return SEVERITY_NONE;
+        }
+        return powerManager.getCurrentThermalStatus();
+    }
+
+    @Override
+    public boolean isPowerSaveMode() {
+        return powerManager != null && powerManager.isPowerSaveMode();
+    }
+
+    @Override
+    public int getBatteryPercent() {
+        if (batteryManager == null) {
+            return -1;
+        }
+        int capacity = batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
+        return capacity > 0 ? capacity : -1;
+    }
+
+    @Override
+    public boolean isCharging() {
+        return batteryManager != null && batteryManager.isCharging();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.cannyedge;
+
+/**
+ * FrameScheduler - Picks the camera frames to process for a target frame rate
+ * Frames are due on a grid of one frame budget per processed frame, anchored to the frame
+ * timestamps. A 30 fps camera scheduled at 24 fps processes 4 of every 5 frames (24 fps),
+ * where a minimum-interval throttle can only skip every other frame (15 fps).
+ *
+ * Plain Java with explicit timestamps (any monotonic nanosecond clock, e.g. System.nanoTime()).
+ * Not thread-safe: call from the camera frame thread.
+ */
+public class FrameScheduler {
+
+    // Frames may arrive this fraction of a budget early (camera timing jitter); the grid advances
+    // by a whole budget per processed frame, so this can not raise the long-run rate
+    private static final double EARLY_TOLERANCE = 0.25;
+    // A frame further than this many budgets off the grid (pause, camera rebind, stall) restarts it
+    private static final int RESYNC_BUDGETS = 2;
+
+    private static final long NOT_SCHEDULED = Long.MIN_VALUE;
+
+    private long nextDueNanos = NOT_SCHEDULED;
+
+    /**
+     * Decide whether a frame should be processed and advance the schedule if so
+     *
+     * @param timestampNanos Frame timestamp
+     * @param targetFps Frames per second to process
+     * @return true if the frame is due
+     */
+    public boolean isDue(long timestampNanos, int targetFps) {
+        long budgetNanos = 1_000_000_000L / targetFps;
+        if (nextDueNanos == NOT_SCHEDULED
+                || Math.abs(timestampNanos - nextDueNanos) > RESYNC_BUDGETS * budgetNanos) {
+            nextDueNanos = timestampNanos;
+        }
+        if (timestampNanos < nextDueNanos - (long) (budgetNanos * EARLY_TOLERANCE)) {
+            return false;
+        }
+
+        // Next slot on the grid (not relative to this frame, so late frames do not lower the rate)
+        nextDueNanos += budgetNanos;
+        return true;
+    }
+
+    // Start a new schedule with the next frame
+    public void reset() {
+        nextDueNanos = NOT_SCHEDULED;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.cannyedge;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.WindowManager;
 import android.widget.Toast;
@@ -14,12 +15,24 @@ import androidx.core.content.ContextCompat;
 
 import org.opencv.android.CameraBridgeViewBase;
 import org.opencv.android.OpenCVLoader;
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
 import org.opencv.imgproc.Imgproc;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * MainActivity - An OpenCV real-time image processing example based on AppCompatActivity.
  * - Structure: Manages Activity lifecycle, OpenCV initialization, and image processing modules.
  * - Functionality: Displays the camera preview and processes it in real-time using Canny edge detection.
+ * - Quality: A QualityGovernor picks the camera frame size and processing rate from the thermal state,
+ *   battery and frame times; frames off the target rate are skipped.
  */
 public class MainActivity extends AppCompatActivity implements CameraBridgeViewBase.CvCameraViewListener2 {
 
@@ -27,14 +40,58 @@ public class MainActivity extends AppCompatActivity implements CameraBridgeViewB
     private static final String TAG = "OpenCVCannyApp";
     private static final int CAMERA_PERMISSION_REQUEST = 100;
 
+    // ============ Display mode ============
+    // EDGES: Canny edges only (white on black)
+    // OVERLAY: Canny edges drawn over the live color preview
+    private enum DisplayMode { EDGES, OVERLAY }
+    private static final DisplayMode DISPLAY_MODE = DisplayMode.EDGES;
+
+    // ============ Startup warm-up ============
+    // Synthetic frames run through the processing module while the camera is starting
+    private static final int WARMUP_FRAMES = 3;
+    private static final int WARMUP_FRAME_WIDTH = 640;
+    private static final int WARMUP_FRAME_HEIGHT = 480;
+
+    // ============ Quality governor ============
+    // Quality ladder, best first: largest camera frame size, target FPS and the hottest thermal
+    // state each level may run at. The governor steps down on thermal pressure or sustained
+    // overload and back up, with hysteresis, when there is headroom again.
+    private static final List<QualityLevel> QUALITY_LEVELS = Arrays.asList(
+            new QualityLevel("full", 640, 480, 30, ThermalSignal.SEVERITY_LIGHT),
+            new QualityLevel("reduced", 640, 480, 20, ThermalSignal.SEVERITY_MODERATE),
+            new QualityLevel("low", 320, 240, 15, ThermalSignal.SEVERITY_SEVERE),
+            new QualityLevel("minimal", 320, 240, 10, ThermalSignal.SEVERITY_SHUTDOWN)
+    );
+    // Frame time / FPS smoothing (exponential moving average weight of the newest frame)
+    private static final double SMOOTHING = 0.1;
+    // Longer gaps between processed frames (camera restart) are left out of the FPS average
+    private static final long MAX_FRAME_GAP_NANOS = 1_000_000_000L;
+    private static final long NO_FRAME = Long.MIN_VALUE;
+
     // ============ Variables ============
     private CameraBridgeViewBase mCameraView;   // OpenCV Camera View interface
     private boolean isOpenCvInitialized = false; // Flag to track if OpenCV has been initialized successfully
+    private boolean isResumed = false;           // Camera view may only be enabled while resumed
+    private ExecutorService loaderExecutor;      // Loads OpenCV off the main thread
+
+    // ============ Quality control (evaluated on the camera frame thread) ============
+    private QualityGovernor qualityGovernor;
+    private volatile QualityLevel qualityLevel = QUALITY_LEVELS.get(0);
+    private final FrameScheduler frameScheduler = new FrameScheduler();
+    private double averageFrameMs = 0;           // Smoothed processing time per frame
+    private double averageFps = 0;               // Smoothed processed frames per second
+    private long lastFrameEndNanos = NO_FRAME;   // No frame processed since the camera started yet
+
+    // ============ Startup timing ============
+    private long createdTimeMs;                  // SystemClock.elapsedRealtime() in onCreate
+    private volatile boolean firstFrameLogged = false;
 
     // ============ onCreate ============
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        createdTimeMs = SystemClock.elapsedRealtime();
+        qualityGovernor = new QualityGovernor(QUALITY_LEVELS, new AndroidThermalSignal(this));
 
         // Keep the screen on
         getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
@@ -47,32 +104,74 @@ public class MainActivity extends AppCompatActivity implements CameraBridgeViewB
         mCameraView.setVisibility(CameraBridgeViewBase.VISIBLE);
         mCameraView.setCvCameraViewListener(this);
 
+        // Load OpenCV in the background while the permission check and camera start go on
+        loaderExecutor = Executors.newSingleThreadExecutor();
+        loadOpenCvAsync();
+
         Log.i(TAG, "onCreate: UI initialized, waiting for OpenCV initialization.");
     }
 
-    // ============ onResume ============
-    @Override
-    protected void onResume() {
-        super.onResume();
-
-        // 1. Attempt to initialize the OpenCV library
-        if (!isOpenCvInitialized) {
-            if (OpenCVLoader.initLocal()) {
-                isOpenCvInitialized = true;
-                Log.i(TAG, "onResume: OpenCV loaded successfully!");
-            } else {
-                Log.e(TAG, "onResume: OpenCV initialization failed!");
-                Toast.makeText(this, "OpenCV initialization failed!", Toast.LENGTH_LONG).show();
-                return;
+    // ============ Background OpenCV loading and warm-up ============
+    private void loadOpenCvAsync() {
+        loaderExecutor.execute(() -> {
+            boolean loaded = OpenCVLoader.initLocal();
+            if (loaded) {
+                // Run synthetic frames through the processing module so the first
+                // camera frame does not hit cold code paths
+                try {
+                    ImageProcessor.warmUp(WARMUP_FRAME_WIDTH, WARMUP_FRAME_HEIGHT, WARMUP_FRAMES);
+                } catch (RuntimeException e) {
+                    // Warm-up only saves first-frame latency: start cold instead of not at all
+                    Log.e(TAG, "loadOpenCvAsync: Warm-up failed, starting without it", e);
+                }
             }
+            runOnUiThread(() -> onOpenCvReady(loaded));
+        });
+    }
+
+    // ============ OpenCV load finished (main thread) ============
+    private void onOpenCvReady(boolean loaded) {
+        if (isDestroyed()) {
+            return;
         }
+        if (!loaded) {
+            Log.e(TAG, "onOpenCvReady: OpenCV initialization failed!");
+            Toast.makeText(this, "OpenCV initialization failed!", Toast.LENGTH_LONG).show();
+            return;
+        }
+        isOpenCvInitialized = true;
+        Log.i(TAG, "onOpenCvReady: OpenCV loaded and warmed up in "
+                + (SystemClock.elapsedRealtime() - createdTimeMs) + " ms");
+        enableCameraIfReady();
+    }
 
-        // 2. Check for camera permission
+    // ============ Enable the camera once OpenCV, permission and lifecycle all allow it ============
+    private void enableCameraIfReady() {
+        if (!isOpenCvInitialized || !isResumed) {
+            return;
+        }
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
                 == PackageManager.PERMISSION_GRANTED) {
             mCameraView.setCameraPermissionGranted(); // Let OpenCV camera know that permission has been granted
+            // Frame size of the current quality level (applied when the camera connects)
+            QualityLevel level = qualityLevel;
+            mCameraView.setMaxFrameSize(level.getMaxFrameWidth(), level.getMaxFrameHeight());
             mCameraView.enableView(); // Permission granted → enable the camera view
+            Log.i(TAG, "enableCameraIfReady: Camera view enabled at " + level);
+        }
+    }
+
+    // ============ onResume ============
+    @Override
+    protected void onResume() {
+        super.onResume();
+        isResumed = true;
+
+        // Check for camera permission (OpenCV may still be loading in the background)
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
+                == PackageManager.PERMISSION_GRANTED) {
             Log.i(TAG, "onResume: Camera permission has been granted.");
+            enableCameraIfReady();
         } else {
             // Permission not granted → request it
             ActivityCompat.requestPermissions(
@@ -94,8 +193,8 @@ public class MainActivity extends AppCompatActivity implements CameraBridgeViewB
                         grantResults[0] == PackageManager.PERMISSION_GRANTED) {
                     // Permission is granted. Continue the action or workflow
                     // in your app.
-                    // Call onResume again to enable the camera.
-                    onResume();
+                    // Enable the camera (if OpenCV has finished loading).
+                    enableCameraIfReady();
                 }  else {
                     // Explain to the user that the feature is unavailable because
                     // the feature requires a permission that the user has denied.
@@ -112,6 +211,7 @@ public class MainActivity extends AppCompatActivity implements CameraBridgeViewB
     @Override
     protected void onPause() {
         super.onPause();
+        isResumed = false;
         // Stop the camera preview to save resources
         if (mCameraView != null) {
             mCameraView.disableView();
@@ -127,6 +227,7 @@ public class MainActivity extends AppCompatActivity implements CameraBridgeViewB
         if (mCameraView != null) {
             mCameraView.disableView();
         }
+        loaderExecutor.shutdown();
         Log.i(TAG, "onDestroy: Camera resources released.");
     }
 
@@ -134,6 +235,9 @@ public class MainActivity extends AppCompatActivity implements CameraBridgeViewB
 
     @Override
     public void onCameraViewStarted(int width, int height) {
+        // New camera session: new frame grid, no FPS across the restart
+        frameScheduler.reset();
+        lastFrameEndNanos = NO_FRAME;
         Log.i(TAG, "onCameraViewStarted: Camera view started with resolution " + width + "x" + height);
     }
 
@@ -145,8 +249,74 @@ public class MainActivity extends AppCompatActivity implements CameraBridgeViewB
     @Override
     public Mat onCameraFrame(CameraBridgeViewBase.CvCameraViewFrame inputFrame) {
         // This method is called for every frame for image processing
+        // Throttle: null makes the view redraw the last processed frame, skipping the conversion
+        long startNanos = System.nanoTime();
+        if (!frameScheduler.isDue(startNanos, qualityLevel.getTargetFps())) {
+            return null;
+        }
+
         Mat rgba = inputFrame.rgba();           // Get the camera frame in RGBA format
-        return ImageProcessor.applyCanny(rgba); // Call the image processing module
+        Mat output;
+        if (DISPLAY_MODE == DisplayMode.OVERLAY) {
+            // The gray frame is the camera's Y plane, so no color conversion is needed
+            output = ImageProcessor.applyCannyOverlay(rgba, inputFrame.gray());
+        } else {
+            output = ImageProcessor.applyCanny(rgba); // Call the image processing module
+        }
+
+        // Time to first processed frame, measured from onCreate
+        if (!firstFrameLogged) {
+            firstFrameLogged = true;
+            Log.i(TAG, "onCameraFrame: First frame processed "
+                    + (SystemClock.elapsedRealtime() - createdTimeMs) + " ms after onCreate.");
+        }
+
+        recordFrame(startNanos, System.nanoTime());
+        governQuality();
+        return output;
+    }
+
+    // ============ Frame telemetry (camera frame thread) ============
+    private void recordFrame(long startNanos, long endNanos) {
+        double frameMs = (endNanos - startNanos) / 1_000_000.0;
+        averageFrameMs = averageFrameMs == 0
+                ? frameMs
+                : averageFrameMs + SMOOTHING * (frameMs - averageFrameMs);
+
+        if (lastFrameEndNanos != NO_FRAME) {
+            long gap = endNanos - lastFrameEndNanos;
+            if (gap > 0 && gap < MAX_FRAME_GAP_NANOS) {
+                double fps = 1_000_000_000.0 / gap;
+                averageFps = averageFps == 0 ? fps : averageFps + SMOOTHING * (fps - averageFps);
+            }
+        }
+        lastFrameEndNanos = endNanos;
+    }
+
+    // ============ Quality governor (camera frame thread) ============
+    private void governQuality() {
+        QualityLevel previous = qualityLevel;
+        if (!qualityGovernor.evaluate(SystemClock.elapsedRealtime(), averageFrameMs, averageFps)) {
+            return;
+        }
+        QualityLevel level = qualityGovernor.getLevel();
+        qualityLevel = level;
+        Log.i(TAG, "governQuality: " + previous.getName() + " → " + level
+                + String.format(Locale.US, " (%.1f ms/frame, %.1f fps)", averageFrameMs, averageFps));
+
+        // A new frame size only applies when the camera reconnects
+        if (!level.hasSameResolution(previous)) {
+            runOnUiThread(this::restartCameraView);
+        }
+    }
+
+    // ============ Reconnect the camera at the current level's frame size (main thread) ============
+    private void restartCameraView() {
+        if (isDestroyed() || !isResumed) {
+            return; // onResume enables the camera at the current level
+        }
+        mCameraView.disableView();
+        enableCameraIfReady();
     }
 
     // =====================================================================
@@ -158,6 +328,9 @@ public class MainActivity extends AppCompatActivity implements CameraBridgeViewB
         private static final double THRESHOLD1 = 80;
         private static final double THRESHOLD2 = 150;
 
+        // Edge color for the overlay mode (RGBA)
+        private static final Scalar OVERLAY_EDGE_COLOR = new Scalar(0, 255, 0, 255);
+
         /**
          * Converts the input Mat to a Canny edge image.
          */
@@ -179,5 +352,48 @@ public class MainActivity extends AppCompatActivity implements CameraBridgeViewB
             edges.release();
             return input;
         }
+
+        /**
+         * Draws Canny edges over the input RGBA frame in place.
+         * The edge map is used as a mask, so the color frame is written only where there are edges
+         * and no extra full-frame copy is made.
+         */
+        public static Mat applyCannyOverlay(Mat rgba, Mat gray) {
+            Mat edges = new Mat();  // Output edges Mat (mask)
+
+            // Apply Canny on the camera's grayscale frame
+            Imgproc.Canny(gray, edges, THRESHOLD1, THRESHOLD2);
+
+            // Paint the edge pixels onto the color frame
+            rgba.setTo(OVERLAY_EDGE_COLOR, edges);
+
+            // Release the intermediate Mat and return the modified frame
+            edges.release();
+            return rgba;
+        }
+
+        /**
+         * Runs synthetic frames through every processing method.
+         * Called on the loader thread right after OpenCV is loaded, so the first camera frame
+         * does not pay for compiling these code paths.
+         */
+        public static void warmUp(int width, int height, int frames) {
+            // Gray frame with a bright square, so Canny finds real edges
+            Mat rgba = new Mat(height, width, CvType.CV_8UC4, new Scalar(64, 64, 64, 255));
+            Mat gray = new Mat(height, width, CvType.CV_8UC1, new Scalar(64));
+            Mat square = gray.submat(new Rect(width / 4, height / 4, width / 2, height / 2));
+            square.setTo(new Scalar(220));
+
+            for (int i = 0; i < frames; i++) {
+                Imgproc.cvtColor(gray, rgba, Imgproc.COLOR_GRAY2RGBA);
+                applyCanny(rgba);
+                Imgproc.cvtColor(gray, rgba, Imgproc.COLOR_GRAY2RGBA);
+                applyCannyOverlay(rgba, gray);
+            }
+
+            square.release();
+            gray.release();
+            rgba.release();
+        }
     }
 }
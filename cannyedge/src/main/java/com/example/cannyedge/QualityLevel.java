@@ -0,0 +1,67 @@
+package com.example.cannyedge;
+
+/**
+ * QualityLevel - One step of the quality ladder used by QualityGovernor
+ * Each level fixes the largest camera frame size, the target frame rate
+ * and the hottest thermal state it may run at.
+ * Levels are immutable; the governor moves between them, best level first.
+ */
+public final class QualityLevel {
+
+    private final String name;
+    private final int maxFrameWidth;      // Largest camera frame size (CameraBridgeViewBase.setMaxFrameSize)
+    private final int maxFrameHeight;
+    private final int targetFps;
+    private final int maxThermalSeverity; // Hottest ThermalSignal.SEVERITY_* this level may run at
+
+    /**
+     * @param name Short name for logs
+     * @param maxFrameWidth Largest camera frame width
+     * @param maxFrameHeight Largest camera frame height
+     * @param targetFps Frames per second to process
+     * @param maxThermalSeverity Hottest thermal severity (ThermalSignal.SEVERITY_*) this level may run at
+     */
+    public QualityLevel(String name, int maxFrameWidth, int maxFrameHeight, int targetFps,
+                        int maxThermalSeverity) {
+        this.name = name;
+        this.maxFrameWidth = maxFrameWidth;
+        this.maxFrameHeight = maxFrameHeight;
+        this.targetFps = targetFps;
+        this.maxThermalSeverity = maxThermalSeverity;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxFrameWidth() {
+        return maxFrameWidth;
+    }
+
+    public int getMaxFrameHeight() {
+        return maxFrameHeight;
+    }
+
+    public int getTargetFps() {
+        return targetFps;
+    }
+
+    public int getMaxThermalSeverity() {
+        return maxThermalSeverity;
+    }
+
+    // Time available per frame at the target frame rate
+    public double getFrameBudgetMs() {
+        return 1000.0 / targetFps;
+    }
+
+    // True if switching between the two levels needs a different camera frame size
+    public boolean hasSameResolution(QualityLevel other) {
+        return maxFrameWidth == other.maxFrameWidth && maxFrameHeight == other.maxFrameHeight;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + maxFrameWidth + "x" + maxFrameHeight + ", " + targetFps + " fps)";
+    }
+}
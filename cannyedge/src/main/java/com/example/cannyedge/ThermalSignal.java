@@ -0,0 +1,30 @@
+package com.example.cannyedge;
+
+/**
+ * ThermalSignal - Device thermal and power state as seen by QualityGovernor
+ * Severity uses the PowerManager.THERMAL_STATUS_* scale (0 = none ... 6 = shutdown),
+ * so implementations can pass the platform value straight through.
+ *
+ * Implementation: AndroidThermalSignal (PowerManager and BatteryManager of the device)
+ */
+public interface ThermalSignal {
+
+    int SEVERITY_NONE = 0;
+    int SEVERITY_LIGHT = 1;
+    int SEVERITY_MODERATE = 2;
+    int SEVERITY_SEVERE = 3;
+    int SEVERITY_CRITICAL = 4;
+    int SEVERITY_EMERGENCY = 5;
+    int SEVERITY_SHUTDOWN = 6;
+
+    // Current thermal severity (SEVERITY_* / PowerManager.THERMAL_STATUS_*)
+    int getThermalSeverity();
+
+    // System battery saver is on
+    boolean isPowerSaveMode();
+
+    // Battery level 0..100, or -1 if unknown
+    int getBatteryPercent();
+
+    boolean isCharging();
+}